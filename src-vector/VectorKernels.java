@@ -0,0 +1,260 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+ * SIMD implementation of the MatrixMath kernels on top of the JDK Vector API
+ * (jdk.incubator.vector). Kept in its own source folder, compiled together
+ * with src/ only when --add-modules jdk.incubator.vector is given; MatrixMath
+ * loads it reflectively and falls back to ScalarKernels when the class or the
+ * module is missing. Reductions are computed lane-wise, so results differ from
+ * the scalar backend in the last bits
+ */
+class VectorKernels implements MatrixKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int MIN_VECTOR_WIDTH = 2 * LANES;
+    private final ScalarKernels scalar = new ScalarKernels();
+
+
+    public String getName() {
+        return "vector (" + SPECIES.vectorBitSize() + "-bit)";
+    }
+
+
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, aOffset + i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, bOffset + i);
+            acc = va.fma(vb, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i<length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+
+        return sum;
+    }
+
+
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+            vx.mul(alpha).add(vy).intoArray(y, yOffset + i);
+        }
+        for (; i<length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+
+    public void axpby(double alpha, double[] x, int xOffset, double beta, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+            vx.mul(alpha).add(vy.mul(beta)).intoArray(out, outOffset + i);
+        }
+        for (; i<length; i++) {
+            out[outOffset + i] = alpha * x[xOffset + i] + beta * y[yOffset + i];
+        }
+    }
+
+
+    public void add(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+            vx.add(vy).intoArray(out, outOffset + i);
+        }
+        for (; i<length; i++) {
+            out[outOffset + i] = x[xOffset + i] + y[yOffset + i];
+        }
+    }
+
+
+    public void scale(double alpha, double[] x, int xOffset, double[] out, int outOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            DoubleVector.fromArray(SPECIES, x, xOffset + i).mul(alpha).intoArray(out, outOffset + i);
+        }
+        for (; i<length; i++) {
+            out[outOffset + i] = alpha * x[xOffset + i];
+        }
+    }
+
+
+    public void divide(double[] x, int offset, int length, double divisor) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            DoubleVector.fromArray(SPECIES, x, offset + i).div(divisor).intoArray(x, offset + i);
+        }
+        for (; i<length; i++) {
+            x[offset + i] /= divisor;
+        }
+    }
+
+
+    public double max(double[] x, int offset, int length) {
+        int bound = SPECIES.loopBound(length);
+        DoubleVector acc = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            acc = acc.max(DoubleVector.fromArray(SPECIES, x, offset + i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i<length; i++) {
+            if (x[offset + i] > max) {
+                max = x[offset + i];
+            }
+        }
+
+        return max;
+    }
+
+
+    public double expShiftSum(double[] x, int offset, int length, double shift) {
+        int bound = SPECIES.loopBound(length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i<bound; i+=LANES) {
+            DoubleVector current = DoubleVector.fromArray(SPECIES, x, offset + i)
+                .sub(shift)
+                .lanewise(VectorOperators.EXP);
+            current.intoArray(x, offset + i);
+            acc = acc.add(current);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i<length; i++) {
+            double current = Math.exp(x[offset + i] - shift);
+            x[offset + i] = current;
+            sum += current;
+        }
+
+        return sum;
+    }
+
+
+    /*
+     * Cache-blocked GEMM. When op(B) has unit column stride the kernel vectorizes
+     * across output columns; when op(A) rows and op(B) columns are both unit
+     * stride (A * B^T) it vectorizes the inner products; anything else goes to
+     * the scalar panel
+     */
+    public void gemm(
+        double alpha,
+        double[] a, int offsetA, int rowStrideA, int colStrideA,
+        double[] b, int offsetB, int rowStrideB, int colStrideB,
+        double[] c, int offsetC, int strideC,
+        int rowFrom, int rowTo, int n, int k
+    ) {
+        for (int p0=0; p0<k; p0+=ScalarKernels.BLOCK_K) {
+            int p1 = Math.min(p0 + ScalarKernels.BLOCK_K, k);
+            for (int i0=rowFrom; i0<rowTo; i0+=ScalarKernels.BLOCK_M) {
+                int i1 = Math.min(i0 + ScalarKernels.BLOCK_M, rowTo);
+                for (int j0=0; j0<n; j0+=ScalarKernels.BLOCK_N) {
+                    int j1 = Math.min(j0 + ScalarKernels.BLOCK_N, n);
+                    // Narrow panels (e.g. a handful of classes or features) don't
+                    // fill enough lanes to pay for broadcasts and reductions
+                    if (colStrideB == 1 && j1 - j0 >= MIN_VECTOR_WIDTH) {
+                        gemmPanelRows(alpha, a, offsetA, rowStrideA, colStrideA, b, offsetB, rowStrideB, c, offsetC, strideC, i0, i1, j0, j1, p0, p1);
+                    } else if (colStrideA == 1 && rowStrideB == 1 && p1 - p0 >= MIN_VECTOR_WIDTH) {
+                        gemmPanelDots(alpha, a, offsetA, rowStrideA, b, offsetB, colStrideB, c, offsetC, strideC, i0, i1, j0, j1, p0, p1);
+                    } else {
+                        scalar.gemmPanel(
+                            alpha,
+                            a, offsetA, rowStrideA, colStrideA,
+                            b, offsetB, rowStrideB, colStrideB,
+                            c, offsetC, strideC,
+                            i0, i1, j0, j1, p0, p1
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+
+    /*
+     * Panel kernel vectorized across output columns: each row of C keeps two
+     * vector accumulators per step of 2*LANES columns, fed by broadcasts of A
+     */
+    private void gemmPanelRows(
+        double alpha,
+        double[] a, int offsetA, int rowStrideA, int colStrideA,
+        double[] b, int offsetB, int rowStrideB,
+        double[] c, int offsetC, int strideC,
+        int i0, int i1, int j0, int j1, int p0, int p1
+    ) {
+        int width = j1 - j0;
+        int bound = j0 + SPECIES.loopBound(width);
+        for (int i=i0; i<i1; i++) {
+            int aRow = offsetA + i * rowStrideA;
+            int cRow = offsetC + i * strideC;
+            int j = j0;
+            for (; j+LANES<bound; j+=2*LANES) {
+                DoubleVector acc0 = DoubleVector.zero(SPECIES);
+                DoubleVector acc1 = DoubleVector.zero(SPECIES);
+                for (int p=p0; p<p1; p++) {
+                    DoubleVector x = DoubleVector.broadcast(SPECIES, a[aRow + p * colStrideA]);
+                    int bIndex = offsetB + p * rowStrideB + j;
+                    acc0 = x.fma(DoubleVector.fromArray(SPECIES, b, bIndex), acc0);
+                    acc1 = x.fma(DoubleVector.fromArray(SPECIES, b, bIndex + LANES), acc1);
+                }
+                acc0.mul(alpha).add(DoubleVector.fromArray(SPECIES, c, cRow + j)).intoArray(c, cRow + j);
+                acc1.mul(alpha).add(DoubleVector.fromArray(SPECIES, c, cRow + j + LANES)).intoArray(c, cRow + j + LANES);
+            }
+            for (; j<bound; j+=LANES) {
+                DoubleVector acc = DoubleVector.zero(SPECIES);
+                for (int p=p0; p<p1; p++) {
+                    DoubleVector x = DoubleVector.broadcast(SPECIES, a[aRow + p * colStrideA]);
+                    acc = x.fma(DoubleVector.fromArray(SPECIES, b, offsetB + p * rowStrideB + j), acc);
+                }
+                acc.mul(alpha).add(DoubleVector.fromArray(SPECIES, c, cRow + j)).intoArray(c, cRow + j);
+            }
+            if (j < j1) {
+                VectorMask<Double> mask = SPECIES.indexInRange(j, j1);
+                DoubleVector acc = DoubleVector.zero(SPECIES);
+                for (int p=p0; p<p1; p++) {
+                    DoubleVector x = DoubleVector.broadcast(SPECIES, a[aRow + p * colStrideA]);
+                    acc = x.fma(DoubleVector.fromArray(SPECIES, b, offsetB + p * rowStrideB + j, mask), acc);
+                }
+                acc.mul(alpha).add(DoubleVector.fromArray(SPECIES, c, cRow + j, mask))
+                    .intoArray(c, cRow + j, mask);
+            }
+        }
+    }
+
+
+    /*
+     * Panel kernel for A * B^T: every output element is an inner product of two
+     * unit-stride rows, vectorized along the shared dimension
+     */
+    private void gemmPanelDots(
+        double alpha,
+        double[] a, int offsetA, int rowStrideA,
+        double[] b, int offsetB, int colStrideB,
+        double[] c, int offsetC, int strideC,
+        int i0, int i1, int j0, int j1, int p0, int p1
+    ) {
+        for (int i=i0; i<i1; i++) {
+            int aRow = offsetA + i * rowStrideA;
+            for (int j=j0; j<j1; j++) {
+                c[offsetC + i * strideC + j] += alpha * dot(a, aRow + p0, b, offsetB + j * colStrideB + p0, p1 - p0);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Precomputed prediction for every combination of raw survey answers. The
+ * answer space (4 x 4 x 2 x 3^9 = 629,856 combinations) is small enough to
+ * enumerate, so each combination's predicted class (and optionally the top
+ * class probability) is stored in a packed array indexed by the mixed-radix
+ * encoding of the answers, and a prediction is a single array read. Built in
+ * parallel row blocks on the MatrixMath worker pool
+ */
+class AnswerSpaceTable {
+    private final int numFeatures;
+    private final int[] featureRanges;
+    private final int[] strides;        // mixed-radix place values, feature 0 most significant
+    private final byte[] classes;
+    private final float[] topProbabilities; // null unless requested
+
+
+    public AnswerSpaceTable(LookupTableScorer scorer, boolean withProbabilities) {
+        this.numFeatures = scorer.getNumFeatures();
+        this.featureRanges = new int[numFeatures];
+        this.strides = new int[numFeatures];
+        int size = 1;
+        for (int j=numFeatures - 1; j>=0; j--) {
+            featureRanges[j] = DataStore.getFeatureRange(j);
+            strides[j] = size;
+            size *= featureRanges[j];
+        }
+        int numClasses = scorer.getNumClasses();
+        if (numClasses > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many classes for the packed table!");
+        }
+        this.classes = new byte[size];
+        this.topProbabilities = withProbabilities ? new float[size] : null;
+
+        MatrixMath.forEachRowBlock(size, (long) size * numFeatures * numClasses, (indexFrom, indexTo) -> {
+            double[] raw = new double[numFeatures];
+            double[] scores = new double[numClasses];
+            decode(indexFrom, raw);
+            for (int index=indexFrom; index<indexTo; index++) {
+                scorer.score(raw, scores);
+                int best = MatrixMath.argMax(scores);
+                classes[index] = (byte) best;
+                if (topProbabilities != null) {
+                    // Softmax at the top class: 1 / sum exp(score - max)
+                    double sum = 0;
+                    for (int c=0; c<numClasses; c++) {
+                        sum += Math.exp(scores[c] - scores[best]);
+                    }
+                    topProbabilities[index] = (float) (1 / sum);
+                }
+                increment(raw);
+            }
+        });
+    }
+
+
+    /*
+     * Return the mixed-radix index of a raw answers vector (answers 1 to each
+     * feature's range)
+     */
+    public int indexOf(double[] rawVector) {
+        if (rawVector.length != numFeatures) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        int index = 0;
+        for (int j=0; j<numFeatures; j++) {
+            int digit = (int) rawVector[j] - 1;
+            if (digit < 0 || digit >= featureRanges[j] || digit + 1 != rawVector[j]) {
+                throw new IllegalArgumentException("Unexpected input received");
+            }
+            index += digit * strides[j];
+        }
+
+        return index;
+    }
+
+
+    public int predict(double[] rawVector) {
+        return classes[indexOf(rawVector)];
+    }
+
+
+    /*
+     * Return the predicted class's probability; only available when the table
+     * was built with probabilities
+     */
+    public double getTopProbability(double[] rawVector) {
+        if (topProbabilities == null) {
+            throw new IllegalStateException("Table was built without probabilities");
+        }
+        return topProbabilities[indexOf(rawVector)];
+    }
+
+
+    public int size() {
+        return classes.length;
+    }
+
+
+    /*
+     * Write the answers of the given index into raw
+     */
+    private void decode(int index, double[] raw) {
+        for (int j=0; j<numFeatures; j++) {
+            raw[j] = 1 + index / strides[j];
+            index %= strides[j];
+        }
+    }
+
+
+    /*
+     * Advance raw to the next index (odometer order, last feature fastest)
+     */
+    private void increment(double[] raw) {
+        for (int j=numFeatures - 1; j>=0; j--) {
+            if (raw[j] < featureRanges[j]) {
+                raw[j]++;
+                return;
+            }
+            raw[j] = 1;
+        }
+    }
+
+}
@@ -25,8 +25,8 @@ public class Controller {
             System.exit(1);
         }
 
-        // Initialize predictor
-        Predictor predictor = new Predictor(dataStore);
+        // Initialize predictor (new responses are absorbed online, with periodic full retrains)
+        Predictor predictor = new Predictor(dataStore, Predictor.UpdateMode.ONLINE);
 
         // Initialize the command-line interface
         CLI cli = new CLI();
@@ -36,23 +36,19 @@ public class Controller {
         while (loop) {
             // Conduct main part of the survey and output the prediction
 
-            // Get features vector via user input and normalize
+            // Get features vector via user input
             double[] vectorRaw = cli.conductSurveyMain();
             double[] vectorEncoded = DataStore.encodeFeaturesVector(vectorRaw);
-            double[][] boxedVectorEncoded = new double[][]{vectorEncoded};
-            double[][] boxedVectorEncodedScaled = Scaler.toNormalizedMatrix(boxedVectorEncoded, predictor.getTrainingDataScalingParams());
-            double[][] boxedVectorEncodedScaledWeighted = Weighter.toWeightedMatrix(boxedVectorEncodedScaled);
-            double[] vectorEncodedScaledWeighted = boxedVectorEncodedScaledWeighted[0];
 
-            // Get and print prediction
-            PartyAffiliation prediction = DataStore.intToPartyAffiliation(predictor.predict(vectorEncodedScaledWeighted));
+            // Get and print prediction (encoding, scaling and weighting are compiled into the scorer)
+            PartyAffiliation prediction = DataStore.intToPartyAffiliation(predictor.predictRaw(vectorRaw));
             System.out.print("\nThe system predicts your party affiliation as follows: ");
             System.out.println(prediction);
             
-            // Gather the final responce, save data, and retrain model on update data
+            // Gather the final responce, save data, and update model with the new sample
             int finalResponce = cli.conductSurveyFinal()-1;
             dataStore.addData(vectorEncoded, finalResponce); // Save unscaled but encoded
-            predictor.retrainModel();
+            predictor.update(vectorEncoded, finalResponce);
             printStats(predictor.getModel());
 
             // Check if the user wants to conduct another survey
@@ -91,7 +87,7 @@ public class Controller {
         String f1Score = Math.round(modelMetrics.getF1Score()*scale) + "%"; 
 
         System.out.println("\n");
-        System.out.println("The following are the current (updated) model performance metrics:");
+        System.out.println("The following are the model performance metrics of the last full retrain:");
         System.out.println("Accuracy: " + accuracy);
         System.out.println("Recall: " + recall);
         System.out.println("Precision: " + precision);
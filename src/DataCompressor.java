@@ -0,0 +1,134 @@
+import java.util.HashMap;
+
+/*
+ * Collapse identical (feature row, label) pairs into unique patterns with their
+ * counts. Survey answers take only a few values per feature, so large datasets
+ * hold far fewer unique patterns than rows; training, scaling and metrics on
+ * the patterns weighted by their counts give the same results as on the full
+ * data (up to floating-point summation order)
+ */
+class DataCompressor {
+
+    /*
+     * Wrapper class for compressed data: unique rows (in order of first
+     * appearance), their labels, and how many original rows each one stands for
+     */
+    static class CompressedData {
+        private final DenseMatrix matrix;
+        private final int[] labels;
+        private final double[] weights;
+        private final int originalRows;
+
+        public CompressedData(DenseMatrix matrix, int[] labels, double[] weights, int originalRows) {
+            this.matrix = matrix;
+            this.labels = labels;
+            this.weights = weights;
+            this.originalRows = originalRows;
+        }
+
+        public DenseMatrix getMatrix() {
+            return matrix;
+        }
+
+        public int[] getLabels() {
+            return labels;
+        }
+
+        public double[] getWeights() {
+            return weights;
+        }
+
+        public int getOriginalRows() {
+            return originalRows;
+        }
+    }
+
+
+    public static CompressedData compress(double[][] data, int[] labels) {
+        return compress(DenseMatrix.fromArray(data), labels);
+    }
+
+
+    public static CompressedData compress(DenseMatrix data, int[] labels) {
+        int m = data.getRows();
+        int n = data.getCols();
+        if (labels.length != m) {
+            throw new IllegalArgumentException("Sizes do not match!");
+        }
+        double[] values = data.getData();
+
+        // Map each distinct pattern (keyed by its first row in the input) to its slot
+        HashMap<Pattern, Integer> slots = new HashMap<>();
+        int[] firstRows = new int[m];
+        int[] counts = new int[m];
+        int unique = 0;
+        for (int i=0; i<m; i++) {
+            Pattern pattern = new Pattern(values, data.rowOffset(i), n, labels[i]);
+            Integer slot = slots.putIfAbsent(pattern, unique);
+            if (slot == null) {
+                firstRows[unique] = i;
+                counts[unique++] = 1;
+            } else {
+                counts[slot]++;
+            }
+        }
+
+        DenseMatrix matrix = new DenseMatrix(unique, n);
+        int[] uniqueLabels = new int[unique];
+        double[] weights = new double[unique];
+        for (int u=0; u<unique; u++) {
+            System.arraycopy(values, data.rowOffset(firstRows[u]), matrix.getData(), matrix.rowOffset(u), n);
+            uniqueLabels[u] = labels[firstRows[u]];
+            weights[u] = counts[u];
+        }
+
+        return new CompressedData(matrix, uniqueLabels, weights, m);
+    }
+
+
+    /*
+     * Hash key viewing one row of the input in place, plus its label
+     */
+    private static class Pattern {
+        private final double[] values;
+        private final int offset;
+        private final int length;
+        private final int label;
+        private final int hash;
+
+        Pattern(double[] values, int offset, int length, int label) {
+            this.values = values;
+            this.offset = offset;
+            this.length = length;
+            this.label = label;
+            int h = label;
+            for (int j=0; j<length; j++) {
+                h = 31 * h + Double.hashCode(values[offset + j]);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Pattern)) {
+                return false;
+            }
+            Pattern pattern = (Pattern) other;
+            if (pattern.hash != hash || pattern.label != label || pattern.length != length) {
+                return false;
+            }
+            for (int j=0; j<length; j++) {
+                if (Double.compare(values[offset + j], pattern.values[pattern.offset + j]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
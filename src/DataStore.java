@@ -246,18 +246,24 @@ public class DataStore {
     public static double[] encodeFeaturesVector(double[] rawVector) {
         double[] encodedVector = new double[rawVector.length];
         for (int i=0; i<rawVector.length; i++) {
-            EncodingDirection encodingDirection = getEncodingDirection(i);
-            double value = rawVector[i];
-            switch(encodingDirection) {
-                case EncodingDirection.FORWARD:
-                    encodedVector[i] = value - 1;
-                    break;
-                case EncodingDirection.REVERSE:
-                    encodedVector[i] = getFeatureRange(i) - value;
-            }
+            encodedVector[i] = encodeFeature(i, rawVector[i]);
         }
 
         return encodedVector;
     }
 
+    /*
+     * Encode a single raw answer (1 to the feature's range) of the given feature
+     */
+    public static double encodeFeature(int featureNumber, double value) {
+        switch(getEncodingDirection(featureNumber)) {
+            case EncodingDirection.FORWARD:
+                return value - 1;
+            case EncodingDirection.REVERSE:
+                return getFeatureRange(featureNumber) - value;
+            default:
+                throw new IllegalArgumentException("Unexpected input received");
+        }
+    }
+
 }
@@ -24,6 +24,7 @@ public class DataUnits {
 
     static class DataSet {
         private double[][] data;
+        private DenseMatrix matrix;
         private int[] labels;
 
         public DataSet(double[][] data, int[] labels) {
@@ -31,10 +32,33 @@ public class DataUnits {
             this.labels = labels;
         }    
 
+        public DataSet(DenseMatrix matrix, int[] labels) {
+            this.matrix = matrix;
+            this.labels = labels;
+        }
+
+        /*
+         * Return data as a jagged 2D array (converted on first use if the set
+         * was built from a contiguous matrix)
+         */
         public double[][] getData() {
+            if (this.data == null) {
+                this.data = matrix.toArray();
+            }
             return this.data;
         }
 
+        /*
+         * Return data as a contiguous row-major matrix (converted on first use
+         * if the set was built from a jagged 2D array)
+         */
+        public DenseMatrix getMatrix() {
+            if (this.matrix == null) {
+                this.matrix = DenseMatrix.fromArray(data);
+            }
+            return this.matrix;
+        }
+
         public int[] getLabels() {
             return this.labels;
         }
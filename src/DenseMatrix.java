@@ -0,0 +1,140 @@
+/*
+ * Dense row-major matrix backed by a single contiguous array.
+ * Element (i, j) lives at data[i*stride + j]; stride is at least cols, which
+ * allows padded rows and views over a larger backing array
+ */
+public class DenseMatrix {
+    private final double[] data;
+    private final int rows;
+    private final int cols;
+    private final int stride;
+
+    public DenseMatrix(double[] data, int rows, int cols, int stride) {
+        if (rows < 0 || cols < 0 || stride < cols) {
+            throw new IllegalArgumentException("Invalid matrix shape!");
+        }
+        if (rows > 0 && data.length < (long) (rows - 1) * stride + cols) {
+            throw new IllegalArgumentException("Backing array too small!");
+        }
+        this.data = data;
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = stride;
+    }
+
+    public DenseMatrix(double[] data, int rows, int cols) {
+        this(data, rows, cols, cols);
+    }
+
+    public DenseMatrix(int rows, int cols) {
+        this(new double[rows * cols], rows, cols, cols);
+    }
+
+
+    /*
+     * Copy a jagged 2D array into a new contiguous matrix
+     */
+    public static DenseMatrix fromArray(double[][] matrix) {
+        int height = matrix.length;
+        int width = height == 0 ? 0 : matrix[0].length;
+        DenseMatrix output = new DenseMatrix(height, width);
+        for (int i=0; i<height; i++) {
+            if (matrix[i].length != width) {
+                throw new IllegalArgumentException("Ragged input matrix!");
+            }
+            System.arraycopy(matrix[i], 0, output.data, i * width, width);
+        }
+
+        return output;
+    }
+
+
+    /*
+     * Copy a single vector into a new 1 x n matrix
+     */
+    public static DenseMatrix fromRow(double[] vector) {
+        return new DenseMatrix(vector.clone(), 1, vector.length);
+    }
+
+
+    /*
+     * Copy contents into a new jagged 2D array
+     */
+    public double[][] toArray() {
+        double[][] output = new double[rows][cols];
+        for (int i=0; i<rows; i++) {
+            System.arraycopy(data, i * stride, output[i], 0, cols);
+        }
+
+        return output;
+    }
+
+
+    /*
+     * Copy a single row into a new vector
+     */
+    public double[] getRow(int row) {
+        double[] output = new double[cols];
+        System.arraycopy(data, row * stride, output, 0, cols);
+        return output;
+    }
+
+
+    /*
+     * Copy the given rows, in order, into a new compact matrix
+     */
+    public DenseMatrix selectRows(int[] rowIndices) {
+        DenseMatrix output = new DenseMatrix(rowIndices.length, cols);
+        for (int i=0; i<rowIndices.length; i++) {
+            System.arraycopy(data, rowIndices[i] * stride, output.data, i * cols, cols);
+        }
+
+        return output;
+    }
+
+
+    /*
+     * Return a compact (stride == cols) deep copy
+     */
+    public DenseMatrix copy() {
+        DenseMatrix output = new DenseMatrix(rows, cols);
+        for (int i=0; i<rows; i++) {
+            System.arraycopy(data, i * stride, output.data, i * cols, cols);
+        }
+
+        return output;
+    }
+
+
+    public double get(int row, int col) {
+        return data[row * stride + col];
+    }
+
+    public void set(int row, int col, double value) {
+        data[row * stride + col] = value;
+    }
+
+    /*
+     * Index into the backing array at which the given row starts
+     */
+    public int rowOffset(int row) {
+        return row * stride;
+    }
+
+    public double[] getData() {
+        return data;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+}
@@ -0,0 +1,14 @@
+/*
+ * Objective function that can report its gradient, minimized by an Optimizer
+ */
+interface DifferentiableFunction {
+
+    int getDimension();
+
+    /*
+     * Return the function value at the given point and write its gradient into
+     * the caller-supplied gradient vector (same length as the point)
+     */
+    double evaluate(double[] point, double[] gradient);
+
+}
@@ -0,0 +1,210 @@
+import java.util.Arrays;
+
+/*
+ * Stratified fold assignments of a growing dataset, kept across retrains so the
+ * folds are not re-split (and re-shuffled) from scratch every time. The first
+ * update splits the rows exactly like StratifiedDataSplitter; rows appended
+ * later are dealt to folds by continuing each class's round robin, so earlier
+ * assignments never move and the folds stay stratified. Every fold keeps
+ * running column statistics of its rows, and a training set's scaling
+ * parameters are merged from its folds' statistics instead of a pass over the
+ * data. Also keeps the folds of fold 0's training set, which ModelTrainer uses
+ * for cross-validation
+ */
+class FoldCache {
+    private final int numberOfFolds;
+    private final int numberOfClasses;
+    private final int[][] foldRows;     // dataset row indices of each fold, in split order
+    private final int[] foldSizes;
+    private final int[] classCounts;    // rows of each class dealt so far
+    private final Scaler.RunningStats[] foldStats;
+    private FoldCache validationCache;  // folds of fold 0's training set (top level only)
+    private int numFeatures;
+    private int version;                // dataset rows absorbed
+
+
+    public FoldCache(int numberOfFolds, int numberOfClasses) {
+        this.numberOfFolds = numberOfFolds;
+        this.numberOfClasses = numberOfClasses;
+        this.foldRows = new int[numberOfFolds][];
+        this.foldSizes = new int[numberOfFolds];
+        this.classCounts = new int[numberOfClasses];
+        this.foldStats = new Scaler.RunningStats[numberOfFolds];
+    }
+
+
+    /*
+     * Bring the cache up to date with the dataset, which may only have grown by
+     * appending rows since the last update
+     */
+    public void update(double[][] data, int[] labels) {
+        if (data.length != labels.length) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        if (data.length < version) {
+            throw new IllegalArgumentException("Dataset shrank; build a new fold cache");
+        }
+        if (version == 0) {
+            if (data.length == 0) {
+                return;
+            }
+            int[] rows = new int[data.length];
+            for (int i=0; i<rows.length; i++) {
+                rows[i] = i;
+            }
+            split(data, labels, rows);
+
+            // Folds of fold 0's training set, split the same way over its rows in order
+            int[] trainRows = getTrainIndices(0);
+            validationCache = new FoldCache(numberOfFolds, numberOfClasses);
+            validationCache.split(data, labels, trainRows);
+            version = data.length;
+            return;
+        }
+
+        for (int row=version; row<data.length; row++) {
+            int fold = add(row, data[row], labels[row]);
+            if (fold != 0) {
+                validationCache.add(row, data[row], labels[row]);
+            }
+        }
+        version = data.length;
+    }
+
+
+    /*
+     * Number of dataset rows absorbed so far
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public int getNumberOfFolds() {
+        return numberOfFolds;
+    }
+
+
+    /*
+     * Dataset row indices of a fold's training set: every other fold, in fold order
+     */
+    public int[] getTrainIndices(int fold) {
+        checkFold(fold);
+        int size = 0;
+        for (int f=0; f<numberOfFolds; f++) {
+            size += f == fold ? 0 : foldSizes[f];
+        }
+        int[] indices = new int[size];
+        int next = 0;
+        for (int f=0; f<numberOfFolds; f++) {
+            if (f != fold) {
+                System.arraycopy(foldRows[f], 0, indices, next, foldSizes[f]);
+                next += foldSizes[f];
+            }
+        }
+
+        return indices;
+    }
+
+
+    /*
+     * Dataset row indices of a fold's testing set: the fold itself
+     */
+    public int[] getTestIndices(int fold) {
+        checkFold(fold);
+        return Arrays.copyOf(foldRows[fold], foldSizes[fold]);
+    }
+
+
+    /*
+     * Scaling parameters of a fold's training set, merged from the other folds'
+     * running statistics
+     */
+    public Scaler.NormalDistParams getTrainingScalingParams(int fold) {
+        checkFold(fold);
+        Scaler.RunningStats merged = new Scaler.RunningStats(numFeatures);
+        for (int f=0; f<numberOfFolds; f++) {
+            if (f != fold) {
+                merged.merge(foldStats[f]);
+            }
+        }
+
+        return merged.toNormalDistParams();
+    }
+
+
+    /*
+     * Folds of fold 0's training set (row indices still refer to the dataset)
+     */
+    public FoldCache getValidationCache() {
+        if (validationCache == null) {
+            throw new IllegalStateException("Fold cache is empty");
+        }
+        return validationCache;
+    }
+
+
+    /*
+     * Initial split of the given dataset rows, identical to StratifiedDataSplitter's
+     */
+    private void split(double[][] data, int[] labels, int[] rows) {
+        StratifiedDataSplitter splitter = new StratifiedDataSplitter(
+            sliceRows(data, rows), sliceLabels(labels, rows), numberOfFolds, numberOfClasses);
+        DataUnits.DataIndicesSet[] indicesSets = splitter.getDataIndicesSets();
+        this.numFeatures = data[0].length;
+        for (int f=0; f<numberOfFolds; f++) {
+            int[] positions = indicesSets[f].getTestIndices();
+            foldRows[f] = new int[Math.max(positions.length, 1)];
+            foldStats[f] = new Scaler.RunningStats(numFeatures);
+            for (int position : positions) {
+                foldRows[f][foldSizes[f]++] = rows[position];
+                foldStats[f].add(data[rows[position]]);
+            }
+        }
+        for (int row : rows) {
+            classCounts[labels[row]]++;
+        }
+    }
+
+
+    /*
+     * Deal a new row to the fold its class's round robin is at, and return it
+     */
+    private int add(int row, double[] vector, int label) {
+        int fold = classCounts[label]++ % numberOfFolds;
+        if (foldSizes[fold] == foldRows[fold].length) {
+            foldRows[fold] = Arrays.copyOf(foldRows[fold], foldSizes[fold] * 2);
+        }
+        foldRows[fold][foldSizes[fold]++] = row;
+        foldStats[fold].add(vector);
+        return fold;
+    }
+
+
+    private void checkFold(int fold) {
+        if (fold < 0 || fold >= numberOfFolds) {
+            throw new IllegalArgumentException("Fold needs to be between 0 and " + numberOfFolds);
+        }
+        if (foldStats[0] == null) {
+            throw new IllegalStateException("Fold cache is empty");
+        }
+    }
+
+
+    private static double[][] sliceRows(double[][] data, int[] rows) {
+        double[][] output = new double[rows.length][];
+        for (int i=0; i<rows.length; i++) {
+            output[i] = data[rows[i]];
+        }
+        return output;
+    }
+
+
+    private static int[] sliceLabels(int[] labels, int[] rows) {
+        int[] output = new int[rows.length];
+        for (int i=0; i<rows.length; i++) {
+            output[i] = labels[rows[i]];
+        }
+        return output;
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Batch gradient descent. The step size follows the chosen strategy: a fixed
+ * learning rate, a backtracking (Armijo) line search, or the per-parameter
+ * adaptive rates of Adam or AdaGrad. Stops once the largest absolute gradient
+ * entry drops below the tolerance or after maxIter steps
+ */
+class GradientDescent implements Optimizer {
+    private static final double ARMIJO = 1e-4;        // sufficient decrease constant
+    private static final double BACKTRACK_FACTOR = 0.5;
+    private static final int MAX_BACKTRACKS = 50;
+    private static final double ADAM_BETA1 = 0.9;
+    private static final double ADAM_BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+    private final LogisticRegressionMultinomial.StepStrategy stepStrategy;
+    private final double learningRate;
+    private final double tolerance;
+    private final int maxIter;
+
+
+    public GradientDescent(double learningRate, double tolerance, int maxIter) {
+        this(LogisticRegressionMultinomial.StepStrategy.CONSTANT, learningRate, tolerance, maxIter);
+    }
+
+
+    /*
+     * learningRate is the fixed step for CONSTANT, the first trial step for
+     * BACKTRACKING, and the base rate for ADAM and ADAGRAD
+     */
+    public GradientDescent(
+        LogisticRegressionMultinomial.StepStrategy stepStrategy,
+        double learningRate, double tolerance, int maxIter
+    ) {
+        this.stepStrategy = stepStrategy;
+        this.learningRate = learningRate;
+        this.tolerance = tolerance;
+        this.maxIter = maxIter;
+    }
+
+
+    public Result minimize(DifferentiableFunction function, double[] point, IterationListener listener) {
+        switch (stepStrategy) {
+            case CONSTANT:
+                return minimizeConstant(function, point, listener);
+            case BACKTRACKING:
+                return minimizeBacktracking(function, point, listener);
+            case ADAM:
+            case ADAGRAD:
+                return minimizeAdaptive(function, point, listener);
+            default:
+                throw new IllegalArgumentException("Unknown Step Strategy: " + stepStrategy);
+        }
+    }
+
+
+    private Result minimizeConstant(DifferentiableFunction function, double[] point, IterationListener listener) {
+        double[] gradient = new double[function.getDimension()];
+        double value = Double.NaN;
+        for (int i=0; i<maxIter; i++) {
+            // Get loss and gradient
+            value = function.evaluate(point, gradient);
+
+            // Update point in place
+            MatrixMath.axpy(-learningRate, gradient, point);
+
+            // Check for stopping condition
+            double measure = MatrixMath.maxAbs(gradient);
+            if (listener != null) {
+                listener.onIteration(i + 1, point, measure);
+            }
+            if (measure < tolerance) {
+                return new Result(value, i + 1, true);
+            }
+        }
+
+        return new Result(value, maxIter, false);
+    }
+
+
+    /*
+     * Steepest descent with an Armijo line search. Each iteration first tries
+     * twice the previously accepted step, then halves it until the loss drops
+     * enough, so the step size tracks the local curvature in both directions
+     */
+    private Result minimizeBacktracking(DifferentiableFunction function, double[] point, IterationListener listener) {
+        int dimension = function.getDimension();
+        double[] gradient = new double[dimension];
+        double[] trialPoint = new double[dimension];
+        double[] trialGradient = new double[dimension];
+        double step = learningRate / 2;
+
+        double value = function.evaluate(point, gradient);
+        for (int iter=0; iter<maxIter; iter++) {
+            double measure = MatrixMath.maxAbs(gradient);
+            if (listener != null) {
+                listener.onIteration(iter, point, measure);
+            }
+            if (measure < tolerance) {
+                return new Result(value, iter, true);
+            }
+
+            double gradientNormSquared = MatrixMath.dot(gradient, gradient);
+            step *= 2;
+            double trialValue = Double.NaN;
+            for (int i=0; i<MAX_BACKTRACKS; i++) {
+                for (int j=0; j<dimension; j++) {
+                    trialPoint[j] = point[j] - step * gradient[j];
+                }
+                trialValue = function.evaluate(trialPoint, trialGradient);
+                if (trialValue <= value - ARMIJO * step * gradientNormSquared) {
+                    break;
+                }
+                step *= BACKTRACK_FACTOR;
+            }
+            if (!(trialValue <= value)) {
+                return new Result(value, iter + 1, false);
+            }
+
+            System.arraycopy(trialPoint, 0, point, 0, dimension);
+            System.arraycopy(trialGradient, 0, gradient, 0, dimension);
+            value = trialValue;
+        }
+
+        double measure = MatrixMath.maxAbs(gradient);
+        if (listener != null) {
+            listener.onIteration(maxIter, point, measure);
+        }
+        return new Result(value, maxIter, measure < tolerance);
+    }
+
+
+    /*
+     * Per-parameter step sizes from running gradient statistics: Adam scales a
+     * bias-corrected momentum by the root mean square of recent gradients,
+     * AdaGrad scales the gradient by the root of all squared gradients so far
+     */
+    private Result minimizeAdaptive(DifferentiableFunction function, double[] point, IterationListener listener) {
+        int dimension = function.getDimension();
+        double[] gradient = new double[dimension];
+        double[] firstMoment = new double[dimension];
+        double[] secondMoment = new double[dimension];
+        boolean adam = stepStrategy == LogisticRegressionMultinomial.StepStrategy.ADAM;
+        double beta1Power = 1;
+        double beta2Power = 1;
+        double value = Double.NaN;
+        for (int iter=0; iter<maxIter; iter++) {
+            value = function.evaluate(point, gradient);
+            double measure = MatrixMath.maxAbs(gradient);
+            if (listener != null) {
+                listener.onIteration(iter, point, measure);
+            }
+            if (measure < tolerance) {
+                return new Result(value, iter, true);
+            }
+
+            if (adam) {
+                beta1Power *= ADAM_BETA1;
+                beta2Power *= ADAM_BETA2;
+                double rate = learningRate * Math.sqrt(1 - beta2Power) / (1 - beta1Power);
+                for (int i=0; i<dimension; i++) {
+                    firstMoment[i] = ADAM_BETA1 * firstMoment[i] + (1 - ADAM_BETA1) * gradient[i];
+                    secondMoment[i] = ADAM_BETA2 * secondMoment[i] + (1 - ADAM_BETA2) * gradient[i] * gradient[i];
+                    point[i] -= rate * firstMoment[i] / (Math.sqrt(secondMoment[i]) + EPSILON);
+                }
+            } else {
+                for (int i=0; i<dimension; i++) {
+                    secondMoment[i] += gradient[i] * gradient[i];
+                    point[i] -= learningRate * gradient[i] / (Math.sqrt(secondMoment[i]) + EPSILON);
+                }
+            }
+        }
+
+        if (listener != null) {
+            // Not yet known at the last point; no tolerance stops a run here
+            listener.onIteration(maxIter, point, Double.POSITIVE_INFINITY);
+        }
+        return new Result(value, maxIter, false);
+    }
+
+}
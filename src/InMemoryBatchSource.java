@@ -0,0 +1,83 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/*
+ * Mini-batch source over an in-memory training matrix. Every epoch visits the
+ * rows in a fresh random permutation and gathers each batch into one reused
+ * batchSize x numFeatures buffer
+ */
+class InMemoryBatchSource implements MiniBatchSource {
+    private final DenseMatrix data;
+    private final int[] labels;
+    private final int batchSize;
+    private final int[] order;
+    private final double[] batchData;
+    private final int[] batchLabels;
+
+
+    public InMemoryBatchSource(DenseMatrix data, int[] labels, int batchSize) {
+        if (data.getRows() != labels.length) {
+            throw new IllegalArgumentException("Sizes do not match!");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive!");
+        }
+        this.data = data;
+        this.labels = labels;
+        this.batchSize = Math.min(batchSize, Math.max(data.getRows(), 1));
+        this.order = new int[data.getRows()];
+        for (int i=0; i<order.length; i++) {
+            order[i] = i;
+        }
+        this.batchData = new double[this.batchSize * data.getCols()];
+        this.batchLabels = new int[this.batchSize];
+    }
+
+
+    public int getNumExamples() {
+        return data.getRows();
+    }
+
+
+    public int getNumFeatures() {
+        return data.getCols();
+    }
+
+
+    public Iterator<Batch> epoch(Random random) {
+        // Fisher-Yates shuffle of the row order
+        for (int i=order.length - 1; i>0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        return new Iterator<Batch>() {
+            private int position = 0;
+
+            public boolean hasNext() {
+                return position < order.length;
+            }
+
+            public Batch next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int rows = Math.min(batchSize, order.length - position);
+                int cols = data.getCols();
+                double[] values = data.getData();
+                for (int r=0; r<rows; r++) {
+                    int row = order[position + r];
+                    System.arraycopy(values, data.rowOffset(row), batchData, r * cols, cols);
+                    batchLabels[r] = labels[row];
+                }
+                position += rows;
+
+                return new Batch(new DenseMatrix(batchData, rows, cols), batchLabels);
+            }
+        };
+    }
+
+}
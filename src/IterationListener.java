@@ -0,0 +1,15 @@
+/*
+ * Observer of an optimizer's iterates, e.g. to evaluate every maxIter and
+ * tolerance setting of a grid from one run
+ */
+interface IterationListener {
+
+    /*
+     * Called whenever the optimizer holds the point it would return if stopped
+     * after the given number of iterations. A run whose tolerance is above
+     * convergenceMeasure stops at this point. The point is only valid during
+     * the call
+     */
+    void onIteration(int iterations, double[] point, double convergenceMeasure);
+
+}
@@ -0,0 +1,265 @@
+/*
+ * Limited-memory BFGS. Keeps the last historySize (s, y) pairs to approximate
+ * the inverse Hessian with the two-loop recursion, and picks each step with a
+ * line search satisfying the strong Wolfe conditions. Converges once the
+ * largest gradient entry drops below gradientTolerance, or the loss changes by
+ * less than relativeTolerance (relative to its magnitude) between iterations
+ */
+class LBFGS implements Optimizer {
+    private static final double ARMIJO = 1e-4;        // sufficient decrease (c1)
+    private static final double CURVATURE = 0.9;      // strong Wolfe curvature (c2)
+    private static final int MAX_LINE_SEARCH = 20;
+    private final int historySize;
+    private final double gradientTolerance;
+    private final double relativeTolerance;
+    private final int maxIter;
+
+
+    public LBFGS(int historySize, double gradientTolerance, double relativeTolerance, int maxIter) {
+        if (historySize <= 0) {
+            throw new IllegalArgumentException("History size must be positive!");
+        }
+        this.historySize = historySize;
+        this.gradientTolerance = gradientTolerance;
+        this.relativeTolerance = relativeTolerance;
+        this.maxIter = maxIter;
+    }
+
+
+    public Result minimize(DifferentiableFunction function, double[] point, IterationListener listener) {
+        int dimension = function.getDimension();
+        double[] gradient = new double[dimension];
+        double[] direction = new double[dimension];
+        double[] trialPoint = new double[dimension];
+        double[] trialGradient = new double[dimension];
+        double[][] s = new double[historySize][dimension];
+        double[][] y = new double[historySize][dimension];
+        double[] rho = new double[historySize];
+        double[] alpha = new double[historySize];
+        int stored = 0;
+        int newest = -1;
+
+        double value = function.evaluate(point, gradient);
+        double measure = MatrixMath.maxAbs(gradient);
+        if (listener != null) {
+            listener.onIteration(0, point, measure);
+        }
+        if (measure < gradientTolerance) {
+            return new Result(value, 0, true);
+        }
+
+        for (int iter=0; iter<maxIter; iter++) {
+            computeDirection(gradient, s, y, rho, alpha, stored, newest, direction);
+            double slope = MatrixMath.dot(gradient, direction);
+            if (!(slope < 0)) {
+                // Not a descent direction: drop the curvature history
+                stored = 0;
+                for (int i=0; i<dimension; i++) {
+                    direction[i] = -gradient[i];
+                }
+                slope = MatrixMath.dot(gradient, direction);
+            }
+
+            // First step is scaled to unit length, later ones try the quasi-Newton step
+            double initialStep = stored == 0 ? Math.min(1, 1 / Math.sqrt(-slope)) : 1;
+            LineSearch search = new LineSearch(function, point, value, slope, direction, trialPoint, trialGradient);
+            double trialValue = search.run(initialStep);
+            if (Double.isNaN(trialValue)) {
+                return new Result(value, iter + 1, false);
+            }
+
+            // Record the new curvature pair, skipping it if it would break positive definiteness
+            double curvature = 0;
+            double gradientChange = 0;
+            for (int i=0; i<dimension; i++) {
+                double dy = trialGradient[i] - gradient[i];
+                curvature += (trialPoint[i] - point[i]) * dy;
+                gradientChange += dy * dy;
+            }
+            if (curvature > 1e-10 * gradientChange) {
+                int slot = (newest + 1) % historySize;
+                for (int i=0; i<dimension; i++) {
+                    s[slot][i] = trialPoint[i] - point[i];
+                    y[slot][i] = trialGradient[i] - gradient[i];
+                }
+                rho[slot] = 1 / curvature;
+                newest = slot;
+                stored = Math.min(stored + 1, historySize);
+            }
+
+            double change = Math.abs(value - trialValue);
+            System.arraycopy(trialPoint, 0, point, 0, dimension);
+            System.arraycopy(trialGradient, 0, gradient, 0, dimension);
+            value = trialValue;
+
+            // Check for stopping conditions
+            measure = MatrixMath.maxAbs(gradient);
+            if (listener != null) {
+                listener.onIteration(iter + 1, point, measure);
+            }
+            if (measure < gradientTolerance
+                || change <= relativeTolerance * Math.max(1, Math.abs(value))) {
+                return new Result(value, iter + 1, true);
+            }
+        }
+
+        return new Result(value, maxIter, false);
+    }
+
+
+    /*
+     * Two-loop recursion: direction = -H * gradient, with H the L-BFGS inverse
+     * Hessian approximation built from the stored pairs (newest first)
+     */
+    private void computeDirection(
+        double[] gradient,
+        double[][] s, double[][] y, double[] rho, double[] alpha,
+        int stored, int newest,
+        double[] direction
+    ) {
+        int dimension = gradient.length;
+        for (int i=0; i<dimension; i++) {
+            direction[i] = -gradient[i];
+        }
+        for (int m=0, slot=newest; m<stored; m++, slot=(slot - 1 + historySize) % historySize) {
+            alpha[slot] = rho[slot] * MatrixMath.dot(s[slot], direction);
+            MatrixMath.axpy(-alpha[slot], y[slot], direction);
+        }
+        if (stored > 0) {
+            // Initial Hessian scaling gamma = s.y / y.y from the newest pair
+            double gamma = 1 / (rho[newest] * MatrixMath.dot(y[newest], y[newest]));
+            MatrixMath.scaleInPlace(gamma, direction);
+        }
+        for (int m=0, slot=(newest - stored + 1 + historySize) % historySize; m<stored; m++, slot=(slot + 1) % historySize) {
+            double beta = rho[slot] * MatrixMath.dot(y[slot], direction);
+            MatrixMath.axpy(alpha[slot] - beta, s[slot], direction);
+        }
+    }
+
+
+    /*
+     * Strong Wolfe line search along a descent direction (bracketing followed
+     * by safeguarded cubic interpolation). The accepted point and its gradient
+     * are left in trialPoint and trialGradient
+     */
+    private static class LineSearch {
+        private final DifferentiableFunction function;
+        private final double[] point;
+        private final double value;
+        private final double slope;
+        private final double[] direction;
+        private final double[] trialPoint;
+        private final double[] trialGradient;
+        private double trialSlope;
+
+        LineSearch(
+            DifferentiableFunction function,
+            double[] point, double value, double slope, double[] direction,
+            double[] trialPoint, double[] trialGradient
+        ) {
+            this.function = function;
+            this.point = point;
+            this.value = value;
+            this.slope = slope;
+            this.direction = direction;
+            this.trialPoint = trialPoint;
+            this.trialGradient = trialGradient;
+        }
+
+        /*
+         * Return the loss at the accepted step, or NaN if no acceptable step was found
+         */
+        double run(double step) {
+            double previousStep = 0;
+            double previousValue = value;
+            double previousSlope = slope;
+            for (int i=0; i<MAX_LINE_SEARCH; i++) {
+                double current = evaluateAt(step);
+                if (!Double.isFinite(current)) {
+                    // Overshot into overflow: back off towards the last good step
+                    step = previousStep + 0.5 * (step - previousStep);
+                    continue;
+                }
+                if (current > value + ARMIJO * step * slope || (i > 0 && current >= previousValue)) {
+                    return zoom(previousStep, previousValue, previousSlope, step, current, trialSlope);
+                }
+                if (Math.abs(trialSlope) <= -CURVATURE * slope) {
+                    return current;
+                }
+                if (trialSlope >= 0) {
+                    return zoom(step, current, trialSlope, previousStep, previousValue, previousSlope);
+                }
+                previousStep = step;
+                previousValue = current;
+                previousSlope = trialSlope;
+                step *= 2;
+            }
+
+            return previousStep > 0 ? evaluateAt(previousStep) : Double.NaN;
+        }
+
+        private double zoom(
+            double low, double lowValue, double lowSlope,
+            double high, double highValue, double highSlope
+        ) {
+            for (int i=0; i<MAX_LINE_SEARCH; i++) {
+                double step = interpolate(low, lowValue, lowSlope, high, highValue, highSlope);
+                double current = evaluateAt(step);
+                if (current > value + ARMIJO * step * slope || current >= lowValue) {
+                    high = step;
+                    highValue = current;
+                    highSlope = trialSlope;
+                } else {
+                    if (Math.abs(trialSlope) <= -CURVATURE * slope) {
+                        return current;
+                    }
+                    if (trialSlope * (high - low) >= 0) {
+                        high = low;
+                        highValue = lowValue;
+                        highSlope = lowSlope;
+                    }
+                    low = step;
+                    lowValue = current;
+                    lowSlope = trialSlope;
+                }
+            }
+
+            // Settle for the best sufficient-decrease step found, if any
+            return low > 0 ? evaluateAt(low) : Double.NaN;
+        }
+
+        /*
+         * Minimizer of the cubic through both end points, kept away from the
+         * interval's edges; falls back to bisection
+         */
+        private static double interpolate(
+            double low, double lowValue, double lowSlope,
+            double high, double highValue, double highSlope
+        ) {
+            double d1 = lowSlope + highSlope - 3 * (lowValue - highValue) / (low - high);
+            double discriminant = d1 * d1 - lowSlope * highSlope;
+            double left = Math.min(low, high);
+            double right = Math.max(low, high);
+            double margin = 0.1 * (right - left);
+            if (discriminant >= 0) {
+                double d2 = Math.signum(high - low) * Math.sqrt(discriminant);
+                double step = high - (high - low) * (highSlope + d2 - d1) / (highSlope - lowSlope + 2 * d2);
+                if (step >= left + margin && step <= right - margin) {
+                    return step;
+                }
+            }
+
+            return 0.5 * (low + high);
+        }
+
+        private double evaluateAt(double step) {
+            for (int i=0; i<point.length; i++) {
+                trialPoint[i] = point[i] + step * direction[i];
+            }
+            double current = function.evaluate(trialPoint, trialGradient);
+            trialSlope = MatrixMath.dot(trialGradient, direction);
+            return current;
+        }
+    }
+
+}
@@ -1,3 +1,8 @@
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
 /*
  * Multinomial (softmax) logistic regression model
  */
@@ -5,33 +10,202 @@ class LogisticRegressionMultinomial {
         private static final double DEFAULT_LAMBDA = 1e-4;
         private static final double DEFAULT_TOLERANCE = 1e-4;
         private static final int DEFAULT_MAX_ITER = 300;
-        private static final double LEARNING_RATE = 0.01;
-        private double[][] trainingData;
-        private double[][] trainingLabelsOneHot;
+        private static final double DEFAULT_LEARNING_RATE = 0.01;
+        private static final int DEFAULT_BATCH_SIZE = 32;
+        private static final int DEFAULT_EPOCHS = 10;
+        private static final long DEFAULT_SHUFFLE_SEED = 0;
+        private static final int DEFAULT_HISTORY_SIZE = 10;
+        private static final double DEFAULT_RELATIVE_TOLERANCE = 1e-9;
+        private static final int DEFAULT_NUM_THREADS = 1;
+        // Worker pools for multi-threaded fits, one per thread count, shared by all models
+        private static final ConcurrentHashMap<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+        private DenseMatrix trainingData;
+        private int[] trainingLabels;
+        private double[] sampleWeights; // null for unit weights
+        private double trainingWeight;  // total weight of the training rows
         private int numClasses;
         private int numExamples;
         private int numFeatures;
         private Options options;
-        private double[][] weights;
-        private double[] biases;
+        // Flat parameter vector (weights row-major, then biases), with a matrix view of the weights
+        private double[] parameters;
+        private DenseMatrix weights;
+        private int biasOffset;
+        private double trainingLoss = Double.NaN;
+        private int iterations;
 
     
     public LogisticRegressionMultinomial(
-        double[][] trainingData,
+        DenseMatrix trainingData,
         int[] trainingLabels,
         int numClasses,
         Options options
     ) {
+        this(trainingData, trainingLabels, numClasses, options, null, null);
+    }
+
+
+    /*
+     * Warm start: training begins from the given weights (numClasses x
+     * numFeatures) and biases, e.g. those of a previous model, instead of zeros.
+     * Passing nulls starts from zeros
+     */
+    public LogisticRegressionMultinomial(
+        DenseMatrix trainingData,
+        int[] trainingLabels,
+        int numClasses,
+        Options options,
+        double[][] initialWeights,
+        double[] initialBiases
+    ) {
+        this(trainingData, trainingLabels, null, numClasses, options, initialWeights, initialBiases);
+    }
+
+
+    /*
+     * Weighted training rows: row i counts sampleWeights[i] times, so training on
+     * unique rows weighted by their counts (see DataCompressor) fits the same
+     * model as training on the full data. Not supported by mini-batch SGD
+     */
+    public LogisticRegressionMultinomial(
+        DenseMatrix trainingData,
+        int[] trainingLabels,
+        double[] sampleWeights,
+        int numClasses,
+        Options options
+    ) {
+        this(trainingData, trainingLabels, sampleWeights, numClasses, options, null, null);
+    }
+
+
+    public LogisticRegressionMultinomial(
+        DenseMatrix trainingData,
+        int[] trainingLabels,
+        double[] sampleWeights,
+        int numClasses,
+        Options options,
+        double[][] initialWeights,
+        double[] initialBiases
+    ) {
+        this(trainingData, trainingLabels, sampleWeights, numClasses, options, initialWeights, initialBiases, null);
+    }
+
+
+    /*
+     * Report every iterate of a full-batch solver to the listener (see
+     * IterationListener); mini-batch SGD ignores it
+     */
+    LogisticRegressionMultinomial(
+        DenseMatrix trainingData,
+        int[] trainingLabels,
+        double[] sampleWeights,
+        int numClasses,
+        Options options,
+        double[][] initialWeights,
+        double[] initialBiases,
+        IterationListener listener
+    ) {
+        if (sampleWeights != null && sampleWeights.length != trainingData.getRows()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        if (sampleWeights != null && options.getSolver() == Solver.MINI_BATCH_SGD) {
+            throw new IllegalArgumentException("Sample weights are not supported by MINI_BATCH_SGD");
+        }
         this.options = options;
         this.numClasses = numClasses;
-        this.numExamples = trainingData.length;
-        this.numFeatures = trainingData[0].length;
+        this.numExamples = trainingData.getRows();
+        this.numFeatures = trainingData.getCols();
         this.trainingData = trainingData;
-        this.trainingLabelsOneHot = MatrixMath.oneHotToDouble(trainingLabels, numClasses);
-        this.weights = new double[numClasses][numFeatures];
-        this.biases = new double[numClasses];
+        this.trainingLabels = trainingLabels;
+        this.sampleWeights = sampleWeights;
+        this.trainingWeight = numExamples;
+        if (sampleWeights != null) {
+            this.trainingWeight = 0;
+            for (double weight : sampleWeights) {
+                this.trainingWeight += weight;
+            }
+        }
+        this.parameters = new double[SoftmaxCrossEntropy.getParameterCount(numClasses, numFeatures)];
+        this.weights = new DenseMatrix(parameters, numClasses, numFeatures);
+        this.biasOffset = SoftmaxCrossEntropy.getBiasOffset(numClasses, numFeatures);
+        if (initialWeights != null || initialBiases != null) {
+            setInitialParameters(initialWeights, initialBiases);
+        }
         
-        performGradientDescent();
+        switch (options.getSolver()) {
+            case GRADIENT_DESCENT:
+                minimize(new GradientDescent(
+                    options.getStepStrategy(), options.getLearningRate(),
+                    options.getTolerance(), options.getMaxIter()), listener);
+                break;
+            case LBFGS:
+                minimize(new LBFGS(
+                    options.getHistorySize(), options.getTolerance(),
+                    options.getRelativeTolerance(), options.getMaxIter()), listener);
+                break;
+            case NEWTON:
+                minimize(new Newton(
+                    options.getTolerance(), options.getRelativeTolerance(), options.getMaxIter()), listener);
+                break;
+            case MINI_BATCH_SGD:
+                performMiniBatchGradientDescent(
+                    new InMemoryBatchSource(trainingData, trainingLabels, options.getBatchSize()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown Solver: " + options.getSolver());
+        }
+    }
+
+
+    /*
+     * Train with mini-batch SGD on batches streamed from the given source, so the
+     * training rows never need to be held as one matrix
+     */
+    public LogisticRegressionMultinomial(
+        MiniBatchSource trainingBatches,
+        int numClasses,
+        Options options
+    ) {
+        if (options.getSolver() != Solver.MINI_BATCH_SGD) {
+            throw new IllegalArgumentException("Streaming training requires the MINI_BATCH_SGD solver");
+        }
+        this.options = options;
+        this.numClasses = numClasses;
+        this.numExamples = trainingBatches.getNumExamples();
+        this.numFeatures = trainingBatches.getNumFeatures();
+        this.trainingWeight = numExamples;
+        this.parameters = new double[SoftmaxCrossEntropy.getParameterCount(numClasses, numFeatures)];
+        this.weights = new DenseMatrix(parameters, numClasses, numFeatures);
+        this.biasOffset = SoftmaxCrossEntropy.getBiasOffset(numClasses, numFeatures);
+
+        performMiniBatchGradientDescent(trainingBatches);
+    }
+
+
+    /*
+     * Model holding a copy of the given flat parameters (weights row-major, then
+     * biases), e.g. an iterate reported to an IterationListener; nothing is trained
+     */
+    LogisticRegressionMultinomial(double[] parameters, int numClasses, int numFeatures, Options options) {
+        if (parameters.length != SoftmaxCrossEntropy.getParameterCount(numClasses, numFeatures)) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        this.options = options;
+        this.numClasses = numClasses;
+        this.numFeatures = numFeatures;
+        this.parameters = parameters.clone();
+        this.weights = new DenseMatrix(this.parameters, numClasses, numFeatures);
+        this.biasOffset = SoftmaxCrossEntropy.getBiasOffset(numClasses, numFeatures);
+    }
+
+
+    public LogisticRegressionMultinomial(
+        double[][] trainingData,
+        int[] trainingLabels,
+        int numClasses,
+        Options options
+    ) {
+        this(DenseMatrix.fromArray(trainingData), trainingLabels, numClasses, options);
     }
 
 
@@ -50,17 +224,104 @@ class LogisticRegressionMultinomial {
 
 
     /*
-     * Wrapper static class to hold options hyperparameters
+     * Copy starting weights and biases into the parameter vector
+     */
+    private void setInitialParameters(double[][] initialWeights, double[] initialBiases) {
+        if (initialWeights == null || initialBiases == null
+            || initialWeights.length != numClasses || initialBiases.length != numClasses) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        for (int k=0; k<numClasses; k++) {
+            if (initialWeights[k].length != numFeatures) {
+                throw new IllegalArgumentException("Mismatching size!");
+            }
+            System.arraycopy(initialWeights[k], 0, parameters, weights.rowOffset(k), numFeatures);
+        }
+        System.arraycopy(initialBiases, 0, parameters, biasOffset, numClasses);
+    }
+
+
+    /*
+     * Training algorithm selection
+     */
+    public static enum Solver {
+        GRADIENT_DESCENT,
+        MINI_BATCH_SGD,
+        LBFGS,
+        NEWTON
+    }
+
+
+    /*
+     * Step size rule for the GRADIENT_DESCENT solver (see GradientDescent)
+     */
+    public static enum StepStrategy {
+        CONSTANT,       // fixed learning rate
+        BACKTRACKING,   // Armijo backtracking line search
+        ADAM,
+        ADAGRAD
+    }
+
+
+    /*
+     * Per-epoch decay of the mini-batch SGD learning rate
+     */
+    public static enum LearningRateSchedule {
+        CONSTANT,
+        INVERSE_TIME,   // rate / (1 + epoch)
+        INVERSE_SQRT;   // rate / sqrt(1 + epoch)
+
+        public double getRate(double initialRate, int epoch) {
+            switch (this) {
+                case INVERSE_TIME:
+                    return initialRate / (1 + epoch);
+                case INVERSE_SQRT:
+                    return initialRate / Math.sqrt(1 + epoch);
+                default:
+                    return initialRate;
+            }
+        }
+    }
+
+
+    /*
+     * Wrapper static class to hold options hyperparameters. The three-argument
+     * constructor keeps the defaults for everything else; use Builder to set the
+     * solver and its controls
      */
     public static class Options {
         private final double lambda;
         private final double tolerance;
         private final int maxIter;
+        private final Solver solver;
+        private final double learningRate;
+        private final int batchSize;
+        private final int epochs;
+        private final long shuffleSeed;
+        private final LearningRateSchedule learningRateSchedule;
+        private final int historySize;
+        private final double relativeTolerance;
+        private final int numThreads;
+        private final StepStrategy stepStrategy;
 
         public Options(double lambda, double tolerance, int maxIter) {
-            this.lambda = lambda;
-            this.tolerance = tolerance;
-            this.maxIter = maxIter;
+            this(new Builder().setLambda(lambda).setTolerance(tolerance).setMaxIter(maxIter));
+        }
+
+        private Options(Builder builder) {
+            this.lambda = builder.lambda;
+            this.tolerance = builder.tolerance;
+            this.maxIter = builder.maxIter;
+            this.solver = builder.solver;
+            this.learningRate = builder.learningRate;
+            this.batchSize = builder.batchSize;
+            this.epochs = builder.epochs;
+            this.shuffleSeed = builder.shuffleSeed;
+            this.learningRateSchedule = builder.learningRateSchedule;
+            this.historySize = builder.historySize;
+            this.relativeTolerance = builder.relativeTolerance;
+            this.numThreads = builder.numThreads;
+            this.stepStrategy = builder.stepStrategy;
         }
 
         public double getLambda() {
@@ -74,27 +335,191 @@ class LogisticRegressionMultinomial {
         public int getMaxIter() {
             return maxIter;
         }
-    }
 
+        public Solver getSolver() {
+            return solver;
+        }
 
-    /*
-     * Return logit scores for input vector
-     */
-    private double[] scoreOf(double[] vector) {
-        return MatrixMath.add(
-            MatrixMath.multiply(weights, vector),
-            biases
-        );
+        public double getLearningRate() {
+            return learningRate;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public int getEpochs() {
+            return epochs;
+        }
+
+        public long getShuffleSeed() {
+            return shuffleSeed;
+        }
+
+        public LearningRateSchedule getLearningRateSchedule() {
+            return learningRateSchedule;
+        }
+
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        public double getRelativeTolerance() {
+            return relativeTolerance;
+        }
+
+        public int getNumThreads() {
+            return numThreads;
+        }
+
+        public StepStrategy getStepStrategy() {
+            return stepStrategy;
+        }
+
+
+        /*
+         * Builder for Options; starts from the defaults, or from a copy of
+         * existing options
+         */
+        public static class Builder {
+            private double lambda = DEFAULT_LAMBDA;
+            private double tolerance = DEFAULT_TOLERANCE;
+            private int maxIter = DEFAULT_MAX_ITER;
+            private Solver solver = Solver.GRADIENT_DESCENT;
+            private double learningRate = DEFAULT_LEARNING_RATE;
+            private int batchSize = DEFAULT_BATCH_SIZE;
+            private int epochs = DEFAULT_EPOCHS;
+            private long shuffleSeed = DEFAULT_SHUFFLE_SEED;
+            private LearningRateSchedule learningRateSchedule = LearningRateSchedule.CONSTANT;
+            private int historySize = DEFAULT_HISTORY_SIZE;
+            private double relativeTolerance = DEFAULT_RELATIVE_TOLERANCE;
+            private int numThreads = DEFAULT_NUM_THREADS;
+            private StepStrategy stepStrategy = StepStrategy.CONSTANT;
+
+            public Builder() {
+            }
+
+            public Builder(Options options) {
+                this.lambda = options.lambda;
+                this.tolerance = options.tolerance;
+                this.maxIter = options.maxIter;
+                this.solver = options.solver;
+                this.learningRate = options.learningRate;
+                this.batchSize = options.batchSize;
+                this.epochs = options.epochs;
+                this.shuffleSeed = options.shuffleSeed;
+                this.learningRateSchedule = options.learningRateSchedule;
+                this.historySize = options.historySize;
+                this.relativeTolerance = options.relativeTolerance;
+                this.numThreads = options.numThreads;
+                this.stepStrategy = options.stepStrategy;
+            }
+
+            public Builder setLambda(double lambda) {
+                this.lambda = lambda;
+                return this;
+            }
+
+            public Builder setTolerance(double tolerance) {
+                this.tolerance = tolerance;
+                return this;
+            }
+
+            public Builder setMaxIter(int maxIter) {
+                this.maxIter = maxIter;
+                return this;
+            }
+
+            public Builder setSolver(Solver solver) {
+                this.solver = solver;
+                return this;
+            }
+
+            public Builder setLearningRate(double learningRate) {
+                if (!(learningRate > 0)) {
+                    throw new IllegalArgumentException("Learning rate must be positive!");
+                }
+                this.learningRate = learningRate;
+                return this;
+            }
+
+            public Builder setBatchSize(int batchSize) {
+                if (batchSize <= 0) {
+                    throw new IllegalArgumentException("Batch size must be positive!");
+                }
+                this.batchSize = batchSize;
+                return this;
+            }
+
+            public Builder setEpochs(int epochs) {
+                if (epochs <= 0) {
+                    throw new IllegalArgumentException("Epochs must be positive!");
+                }
+                this.epochs = epochs;
+                return this;
+            }
+
+            public Builder setShuffleSeed(long shuffleSeed) {
+                this.shuffleSeed = shuffleSeed;
+                return this;
+            }
+
+            public Builder setLearningRateSchedule(LearningRateSchedule learningRateSchedule) {
+                this.learningRateSchedule = learningRateSchedule;
+                return this;
+            }
+
+            /*
+             * Number of curvature pairs kept by L-BFGS
+             */
+            public Builder setHistorySize(int historySize) {
+                if (historySize <= 0) {
+                    throw new IllegalArgumentException("History size must be positive!");
+                }
+                this.historySize = historySize;
+                return this;
+            }
+
+            /*
+             * L-BFGS and Newton also stop once the loss changes by less than this
+             * fraction of its magnitude between iterations
+             */
+            public Builder setRelativeTolerance(double relativeTolerance) {
+                this.relativeTolerance = relativeTolerance;
+                return this;
+            }
+
+            /*
+             * Threads used to evaluate the full-batch objective; results do not
+             * depend on this (see SoftmaxCrossEntropy)
+             */
+            public Builder setNumThreads(int numThreads) {
+                if (numThreads <= 0) {
+                    throw new IllegalArgumentException("Number of threads must be positive!");
+                }
+                this.numThreads = numThreads;
+                return this;
+            }
+
+            public Builder setStepStrategy(StepStrategy stepStrategy) {
+                this.stepStrategy = stepStrategy;
+                return this;
+            }
+
+            public Options build() {
+                return new Options(this);
+            }
+        }
     }
 
 
     /*
-     * Returns matrix of scores: XW^T + b-broadcast
+     * Return logit scores for input vector
      */
-    private double[][] getScores() {
-        double[][] scores = MatrixMath.multiply(trainingData, MatrixMath.transpose(weights));
-        for (int i=0; i<scores.length; i++) {
-            scores[i] = MatrixMath.add(scores[i], biases);
+    private double[] scoreOf(double[] vector) {
+        double[] scores = MatrixMath.multiply(weights, vector);
+        for (int k=0; k<numClasses; k++) {
+            scores[k] += parameters[biasOffset + k];
         }
 
         return scores;
@@ -102,123 +527,148 @@ class LogisticRegressionMultinomial {
 
 
     /*
-     * Return matrix predicting class probabilities
+     * Full-batch training: hand the fused objective (see SoftmaxCrossEntropy) over
+     * the training data to the selected optimizer, which updates the parameters
+     * in place
      */
-    private double[][] getProbabilities() {
-        return Softmax.apply(getScores());
+    private void minimize(Optimizer optimizer, IterationListener listener) {
+        ForkJoinPool pool = options.getNumThreads() > 1
+            ? pools.computeIfAbsent(options.getNumThreads(), ForkJoinPool::new)
+            : null;
+        SoftmaxCrossEntropy objective = new SoftmaxCrossEntropy(
+            trainingData, trainingLabels, sampleWeights, numClasses, options.getLambda(), pool);
+        Optimizer.Result result = optimizer.minimize(objective, parameters, listener);
+        trainingLoss = result.getValue();
+        iterations = result.getIterations();
     }
 
 
     /*
-     * Return matrix containing Ŷ − oneHot(Y)
+     * Mini-batch Stochastic Gradient Descent. Each step is a fused pass over one
+     * batch; regularization is scaled by the batch's share of the data so every
+     * step follows an unbiased estimate of the full-batch gradient. Training
+     * stops after the configured number of epochs, or earlier once the mean
+     * epoch loss changes by less than the tolerance
      */
-    private double[][] getDelta() {
-        return MatrixMath.add(
-            getProbabilities(),
-            MatrixMath.scalarMultiply(
-                -1, 
-                trainingLabelsOneHot
-            )
-        );
+    private void performMiniBatchGradientDescent(MiniBatchSource trainingBatches) {
+        Random random = new Random(options.getShuffleSeed());
+        double[] gradient = new double[parameters.length];
+        double previousLoss = Double.NaN;
+        for (int epoch=0; epoch<options.getEpochs(); epoch++) {
+            iterations = epoch + 1;
+            double rate = options.getLearningRateSchedule().getRate(options.getLearningRate(), epoch);
+            double lossSum = 0;
+            long rowsSeen = 0;
+
+            Iterator<MiniBatchSource.Batch> batches = trainingBatches.epoch(random);
+            while (batches.hasNext()) {
+                MiniBatchSource.Batch batch = batches.next();
+                int rows = batch.getRows();
+                SoftmaxCrossEntropy objective = new SoftmaxCrossEntropy(
+                    batch.getData(), batch.getLabels(), numClasses,
+                    options.getLambda() * rows / numExamples);
+
+                lossSum += rows * objective.evaluate(parameters, gradient);
+                rowsSeen += rows;
+                MatrixMath.axpy(-rate, gradient, parameters);
+            }
+
+            // Check for stopping condition on the mean loss seen over the epoch
+            trainingLoss = lossSum / rowsSeen;
+            if (Math.abs(previousLoss - trainingLoss) < options.getTolerance()) {
+                return;
+            }
+            previousLoss = trainingLoss;
+        }
     }
 
+
     /*
-     * Return gradient of the cross-entropy loss function w.r.t. the weights
+     * Online update: take a fixed number of gradient steps on a small batch (e.g.
+     * a new sample plus a replay buffer). Regularization is scaled by the batch's
+     * share of the (weighted) training rows, as in mini-batch SGD
      */
-    private double[][] getWeightsGradient(double[][] delta) {
-        double[][] rawWeightsGradient = MatrixMath.scalarMultiply(
-            1.0/numExamples, 
-            MatrixMath.multiply(
-                MatrixMath.transpose(delta), 
-                trainingData
-            )
-        );
-
-        double[][] regularization = MatrixMath.scalarMultiply(
-            options.getLambda() / numExamples, 
-            weights
-        );
+    public void partialFit(DenseMatrix batch, int[] labels, int steps, double learningRate) {
+        if (batch.getCols() != numFeatures) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        SoftmaxCrossEntropy objective = new SoftmaxCrossEntropy(
+            batch, labels, numClasses, options.getLambda() * batch.getRows() / trainingWeight);
+        double[] gradient = new double[parameters.length];
+        for (int i=0; i<steps; i++) {
+            trainingLoss = objective.evaluate(parameters, gradient);
+            MatrixMath.axpy(-learningRate, gradient, parameters);
+        }
+    }
 
-        double[][] output = MatrixMath.add(rawWeightsGradient, regularization);
 
-        return output;
+    /*
+     * Return an independent copy of the trained model (parameters and training
+     * statistics, not the training data), e.g. to update online while keeping
+     * the original
+     */
+    public LogisticRegressionMultinomial copy() {
+        LogisticRegressionMultinomial copy = new LogisticRegressionMultinomial(parameters, numClasses, numFeatures, options);
+        copy.numExamples = numExamples;
+        copy.trainingWeight = trainingWeight;
+        copy.trainingLoss = trainingLoss;
+        copy.iterations = iterations;
+        return copy;
     }
 
 
     /*
-     * Return gradient of the cross-entropy loss function w.r.t. the biases
+     * Adjust the parameters so predictions are unchanged when every input feature
+     * x_j is replaced by scale_j * x_j + shift_j (e.g. after the statistics used
+     * to standardize the inputs move)
      */
-    private double[] getBiasesGradient(double[][] delta) {
-        double[] gradient = new double[numClasses];
-
-        // Accumulate row sums
-        for (int i=0; i<numExamples; i++) {
-            for (int k=0; k<numClasses; k++) {
-                gradient[k] += delta[i][k];
-            }
+    public void rebaseFeatures(double[] scale, double[] shift) {
+        if (scale.length != numFeatures || shift.length != numFeatures) {
+            throw new IllegalArgumentException("Mismatching size!");
         }
-
-        // Take the average of the sums at each index
-        double scalar = 1.0 / numExamples;
         for (int k=0; k<numClasses; k++) {
-            gradient[k] *= scalar;
+            int offset = weights.rowOffset(k);
+            for (int j=0; j<numFeatures; j++) {
+                parameters[offset + j] /= scale[j];
+                parameters[biasOffset + k] -= parameters[offset + j] * shift[j];
+            }
         }
-
-        return gradient;
     }
 
+
     /*
-     * Check for convergence: stopping condition for Gradient Descent
+     * Return the training loss (regularized mean cross-entropy) at the last
+     * iterate evaluated during training. For mini-batch SGD this is the mean
+     * loss over the batches of the last epoch
      */
-    private boolean hasConverged(
-        double[][] weightsGradient,
-        double[] biasesGradient
-    ) {
-        double max = 0;
-        for (double[] row : weightsGradient) {
-            for (double val : row) {
-                if (Math.abs(val) > max) {
-                    max = val;
-                }
-            }
-        }
+    public double getTrainingLoss() {
+        return trainingLoss;
+    }
 
-        for (double val : biasesGradient) {
-            if (Math.abs(val) > max) {
-                max = val;
-            }
-        }
 
-        return max < options.getTolerance();
+    /*
+     * Return the number of iterations training used (epochs for mini-batch SGD)
+     */
+    public int getIterations() {
+        return iterations;
     }
 
 
     /*
-     * Batch Gradient Descent algorithm
+     * Return a copy of the trained weights (numClasses x numFeatures)
      */
-    private void performGradientDescent() {
-        for (int i=0; i<options.getMaxIter(); i++) {
-            // Get gradients for weights and biases
-            double[][] delta = getDelta(); // matrix containing Ŷ − oneHot(Y)
-            double[][] weightsGradient = getWeightsGradient(delta);
-            double[] biasesGradient = getBiasesGradient(delta);
-            
-            // Update weights
-            weights = MatrixMath.add(
-                weights,
-                MatrixMath.scalarMultiply(-LEARNING_RATE, weightsGradient)
-            );
-            // Update biases
-            biases = MatrixMath.add(
-                biases,
-                MatrixMath.scalarMultiply(-LEARNING_RATE, biasesGradient)
-            );
+    public double[][] getWeights() {
+        return weights.toArray();
+    }
 
-            // Check for stopping condition
-            if (hasConverged(weightsGradient, biasesGradient)) {
-                return;
-            }
-        }
+
+    /*
+     * Return a copy of the trained biases
+     */
+    public double[] getBiases() {
+        double[] biases = new double[numClasses];
+        System.arraycopy(parameters, biasOffset, biases, 0, numClasses);
+        return biases;
     }
 
 
@@ -230,17 +680,97 @@ class LogisticRegressionMultinomial {
     }
 
 
+    /*
+     * Return class probabilities for input vector x
+     */
+    public double[] predictProba(double[] x) {
+        return Softmax.apply(new double[][]{scoreOf(x)})[0];
+    }
+
+
     /*
      * Return an array of integers representing classes predicted by the model, 
      * given an input matrix X
      */
     public int[] predict(double[][] X) {
-        int[] output = new int[X.length];
-        for (int i=0; i<X.length; i++) {
-            output[i] = MatrixMath.argMax(scoreOf(X[i]));
+        return predict(DenseMatrix.fromArray(X));
+    }
+
+
+    /*
+     * Return an array of integers representing classes predicted by the model, 
+     * given a contiguous input matrix X
+     */
+    public int[] predict(DenseMatrix X) {
+        int[] output = new int[X.getRows()];
+        predict(X, new DenseMatrix(X.getRows(), numClasses), output);
+
+        return output;
+    }
+
+
+    /*
+     * Batched prediction into caller-supplied buffers: scores (rows x numClasses)
+     * is left holding the logits, output the predicted classes
+     */
+    public void predict(DenseMatrix X, DenseMatrix scores, int[] output) {
+        if (output.length != X.getRows()) {
+            throw new IllegalArgumentException("Mismatching size!");
         }
+        predictScores(X, scores, false);
+        double[] data = scores.getData();
+        for (int i=0; i<output.length; i++) {
+            int offset = scores.rowOffset(i);
+            int best = 0;
+            for (int k=1; k<numClasses; k++) {
+                if (data[offset + k] > data[offset + best]) {
+                    best = k;
+                }
+            }
+            output[i] = best;
+        }
+    }
+
+
+    /*
+     * Return class probabilities (rows x numClasses) for every row of X
+     */
+    public DenseMatrix predictProba(DenseMatrix X) {
+        DenseMatrix output = new DenseMatrix(X.getRows(), numClasses);
+        predictProba(X, output);
 
         return output;
     }
 
+
+    /*
+     * Write class probabilities for every row of X into a caller-supplied
+     * output (rows x numClasses)
+     */
+    public void predictProba(DenseMatrix X, DenseMatrix output) {
+        predictScores(X, output, true);
+    }
+
+
+    /*
+     * Score every row of X with one GEMM into output (rows x numClasses): the
+     * logits, or with probabilities their row-wise softmax. Allocates nothing
+     */
+    public void predictScores(DenseMatrix X, DenseMatrix output, boolean probabilities) {
+        if (X.getCols() != numFeatures || output.getRows() != X.getRows() || output.getCols() != numClasses) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        MatrixMath.gemmTransposeB(1.0, X, weights, 0.0, output);
+        double[] data = output.getData();
+        for (int i=0; i<output.getRows(); i++) {
+            int offset = output.rowOffset(i);
+            for (int k=0; k<numClasses; k++) {
+                data[offset + k] += parameters[biasOffset + k];
+            }
+        }
+        if (probabilities) {
+            Softmax.applyInPlace(output);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+/*
+ * Compiled scorer for raw survey answers. Every feature takes only a few
+ * discrete values, so encoding, scaling, weighting and the trained weights fold
+ * into a table holding each (feature, answer) pair's contribution to every
+ * class logit. Scoring is then one lookup and add per feature and class, with
+ * no allocation. The table must be recompiled whenever the model or the
+ * scaling parameters change
+ */
+class LookupTableScorer {
+    private final int numFeatures;
+    private final int numClasses;
+    private final int[] featureRanges;
+    private final int[] featureOffsets; // start of each feature's [answer][class] block
+    private final double[] table;
+    private final double[] biases;
+
+
+    /*
+     * Fold the inference pipeline (DataStore.encodeFeature, scaling with the
+     * given parameters, Weighter.weigh, then the model's weights) into the table
+     */
+    public LookupTableScorer(LogisticRegressionMultinomial model, Scaler.NormalDistParams scalingParams) {
+        double[][] weights = model.getWeights();
+        this.numClasses = weights.length;
+        this.numFeatures = weights[0].length;
+        this.biases = model.getBiases();
+        this.featureRanges = new int[numFeatures];
+        this.featureOffsets = new int[numFeatures];
+        double[] mu = scalingParams.getMeanVector();
+        double[] sigma = scalingParams.getStdDevVector();
+
+        int size = 0;
+        for (int j=0; j<numFeatures; j++) {
+            featureRanges[j] = DataStore.getFeatureRange(j);
+            featureOffsets[j] = size;
+            size += featureRanges[j] * numClasses;
+        }
+        this.table = new double[size];
+
+        for (int j=0; j<numFeatures; j++) {
+            for (int answer=1; answer<=featureRanges[j]; answer++) {
+                double encoded = DataStore.encodeFeature(j, answer);
+                double scaled = (encoded - mu[j]) / (sigma[j] == 0 ? 1 : sigma[j]);
+                double weighted = Weighter.weigh(j, scaled);
+                int offset = featureOffsets[j] + (answer - 1) * numClasses;
+                for (int c=0; c<numClasses; c++) {
+                    table[offset + c] = weights[c][j] * weighted;
+                }
+            }
+        }
+    }
+
+
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    public int getNumClasses() {
+        return numClasses;
+    }
+
+
+    /*
+     * Write the class logits of a raw answers vector into scores
+     */
+    public void score(double[] rawVector, double[] scores) {
+        if (rawVector.length != numFeatures || scores.length != numClasses) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        for (int c=0; c<numClasses; c++) {
+            scores[c] = 0;
+        }
+        for (int j=0; j<numFeatures; j++) {
+            int offset = offsetOf(j, rawVector[j]);
+            for (int c=0; c<numClasses; c++) {
+                scores[c] += table[offset + c];
+            }
+        }
+        for (int c=0; c<numClasses; c++) {
+            scores[c] += biases[c];
+        }
+    }
+
+
+    /*
+     * Return the class with the highest logit for a raw answers vector
+     */
+    public int predict(double[] rawVector) {
+        if (rawVector.length != numFeatures) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        int best = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int c=0; c<numClasses; c++) {
+            double score = 0;
+            for (int j=0; j<numFeatures; j++) {
+                score += table[offsetOf(j, rawVector[j]) + c];
+            }
+            score += biases[c];
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+
+        return best;
+    }
+
+
+    /*
+     * Table offset of a feature's block for a raw answer (1 to the feature's range)
+     */
+    private int offsetOf(int featureNumber, double answer) {
+        int index = (int) answer - 1;
+        if (index < 0 || index >= featureRanges[featureNumber] || index + 1 != answer) {
+            throw new IllegalArgumentException("Unexpected input received");
+        }
+        return featureOffsets[featureNumber] + index * numClasses;
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Low-level numeric kernels behind MatrixMath. All operations work on slices of
+ * flat arrays (array, offset, length) so they serve both jagged rows and
+ * contiguous DenseMatrix storage. Implementations: ScalarKernels (plain Java)
+ * and VectorKernels (JDK Vector API, optional, in src-vector/)
+ */
+interface MatrixKernels {
+
+    /*
+     * Short name of the backend, for logging
+     */
+    String getName();
+
+    /*
+     * Dot product of two slices
+     */
+    double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    /*
+     * y = y + alpha * x
+     */
+    void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+    /*
+     * out = alpha * x + beta * y (out may alias x or y)
+     */
+    void axpby(double alpha, double[] x, int xOffset, double beta, double[] y, int yOffset, double[] out, int outOffset, int length);
+
+    /*
+     * out = x + y (out may alias x or y)
+     */
+    void add(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length);
+
+    /*
+     * out = alpha * x (out may alias x)
+     */
+    void scale(double alpha, double[] x, int xOffset, double[] out, int outOffset, int length);
+
+    /*
+     * x = x / divisor, in place
+     */
+    void divide(double[] x, int offset, int length, double divisor);
+
+    /*
+     * Largest element of a slice
+     */
+    double max(double[] x, int offset, int length);
+
+    /*
+     * x = exp(x - shift) in place; returns the sum of the results
+     */
+    double expShiftSum(double[] x, int offset, int length, double shift);
+
+    /*
+     * C += alpha * op(A) * op(B) for rows [rowFrom, rowTo) of C, with op(A) m x k,
+     * op(B) k x n and C m x n row-major. Element (i, p) of op(A) is
+     * a[offsetA + i*rowStrideA + p*colStrideA], element (p, j) of op(B) is
+     * b[offsetB + p*rowStrideB + j*colStrideB] and element (i, j) of C is
+     * c[offsetC + i*strideC + j]. Disjoint row ranges may run concurrently
+     */
+    void gemm(
+        double alpha,
+        double[] a, int offsetA, int rowStrideA, int colStrideA,
+        double[] b, int offsetB, int rowStrideB, int colStrideB,
+        double[] c, int offsetC, int strideC,
+        int rowFrom, int rowTo, int n, int k
+    );
+
+}
@@ -1,7 +1,235 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /*
  * Utility class with static methods for basic linear algebra operations
  */
 public class MatrixMath {
+    // System property that forces a kernel backend: "scalar", "vector" or "auto" (default)
+    public static final String BACKEND_PROPERTY = "matrixmath.backend";
+    private static volatile MatrixKernels kernels = selectKernels(System.getProperty(BACKEND_PROPERTY, "auto"));
+    // System properties for the fork/join kernels: worker count, and the amount of
+    // work (multiply-adds) below which a product stays on the calling thread
+    public static final String PARALLELISM_PROPERTY = "matrixmath.parallelism";
+    public static final String PARALLEL_THRESHOLD_PROPERTY = "matrixmath.parallelThreshold";
+    private static final long DEFAULT_PARALLEL_THRESHOLD = 1L << 22;
+    private static final int MIN_ROWS_PER_TASK = 64;
+    private static volatile ForkJoinPool pool = createPool(
+        Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    private static volatile long parallelThreshold =
+        Long.getLong(PARALLEL_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_THRESHOLD);
+
+    /*
+     * Enum for selecting the kernel backend
+     */
+    public static enum Backend {
+        SCALAR,
+        VECTOR
+    }
+
+
+    /*
+     * Pick the kernel backend at startup. "auto" uses the Vector API when the
+     * jdk.incubator.vector module is present and falls back to scalar code otherwise
+     */
+    private static MatrixKernels selectKernels(String choice) {
+        switch (choice.trim().toLowerCase()) {
+            case "scalar":
+                return new ScalarKernels();
+            case "vector":
+                return createKernels(Backend.VECTOR);
+            case "auto":
+                try {
+                    return createKernels(Backend.VECTOR);
+                } catch (IllegalStateException ex) {
+                    return new ScalarKernels();
+                }
+            default:
+                throw new IllegalArgumentException("Unknown " + BACKEND_PROPERTY + ": " + choice);
+        }
+    }
+
+
+    /*
+     * Instantiate the given backend. The vector backend is loaded reflectively so
+     * that a build without src-vector/, or a missing jdk.incubator.vector module,
+     * surfaces here and not at class load
+     */
+    private static MatrixKernels createKernels(Backend backend) {
+        switch (backend) {
+            case SCALAR:
+                return new ScalarKernels();
+            case VECTOR:
+                try {
+                    return (MatrixKernels) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError ex) {
+                    throw new IllegalStateException(
+                        "Vector backend unavailable (compile src-vector/ and run with --add-modules jdk.incubator.vector)", ex);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+    }
+
+
+    /*
+     * Force a kernel backend at runtime (e.g. to compare backends in tests)
+     */
+    public static void setBackend(Backend backend) {
+        kernels = createKernels(backend);
+    }
+
+
+    /*
+     * Return the name of the active kernel backend
+     */
+    public static String getBackendName() {
+        return kernels.getName();
+    }
+
+
+    /*
+     * Active kernel backend, shared with Softmax
+     */
+    static MatrixKernels kernels() {
+        return kernels;
+    }
+
+
+    /*
+     * Create the worker pool for parallel kernels; parallelism 1 means no pool
+     */
+    private static ForkJoinPool createPool(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        return parallelism == 1 ? null : new ForkJoinPool(parallelism);
+    }
+
+
+    /*
+     * Set the number of worker threads used by the parallel kernels
+     */
+    public static void setParallelism(int parallelism) {
+        ForkJoinPool previous = pool;
+        pool = createPool(parallelism);
+        if (previous != null) {
+            previous.shutdown();
+        }
+    }
+
+
+    /*
+     * Return the number of worker threads used by the parallel kernels
+     */
+    public static int getParallelism() {
+        ForkJoinPool current = pool;
+        return current == null ? 1 : current.getParallelism();
+    }
+
+
+    /*
+     * Set the amount of work (multiply-adds) from which products are split across
+     * the worker pool
+     */
+    public static void setParallelThreshold(long threshold) {
+        parallelThreshold = threshold;
+    }
+
+    public static long getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+
+    /*
+     * Functional interface for work over a contiguous range of output rows
+     */
+    interface RowBlock {
+        void run(int rowFrom, int rowTo);
+    }
+
+
+    /*
+     * Fork/join task that halves its row range until blocks are small enough
+     */
+    private static class RowBlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final transient RowBlock body;
+        private final int rowFrom;
+        private final int rowTo;
+        private final int grain;
+
+        RowBlockTask(RowBlock body, int rowFrom, int rowTo, int grain) {
+            this.body = body;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowTo - rowFrom <= grain) {
+                body.run(rowFrom, rowTo);
+                return;
+            }
+            int middle = (rowFrom + rowTo) >>> 1;
+            invokeAll(
+                new RowBlockTask(body, rowFrom, middle, grain),
+                new RowBlockTask(body, middle, rowTo, grain)
+            );
+        }
+    }
+
+
+    /*
+     * Run body over [0, rows), split into row blocks on the worker pool when the
+     * work is above the threshold. Each output row is computed by exactly one
+     * block, so results are identical to the single-threaded path
+     */
+    static void forEachRowBlock(int rows, long work, RowBlock body) {
+        ForkJoinPool current = pool;
+        if (current == null || work < parallelThreshold || rows < 2 * MIN_ROWS_PER_TASK) {
+            body.run(0, rows);
+            return;
+        }
+        int tasks = Math.min(rows / MIN_ROWS_PER_TASK, 4 * current.getParallelism());
+        int grain = Math.max(MIN_ROWS_PER_TASK, (rows + tasks - 1) / tasks);
+        current.invoke(new RowBlockTask(body, 0, rows, grain));
+    }
+
+
+    /*
+     * Run body over [0, rows) on the given pool, split into blocks of at most
+     * grain rows (inline when pool is null)
+     */
+    static void forEachRowBlock(ForkJoinPool pool, int rows, int grain, RowBlock body) {
+        if (pool == null || rows <= grain) {
+            body.run(0, rows);
+            return;
+        }
+        pool.invoke(new RowBlockTask(body, 0, rows, grain));
+    }
+
+
+    /*
+     * Dispatch a GEMM to the active backend, in parallel row blocks when large
+     */
+    private static void runGemm(
+        double alpha,
+        double[] a, int rowStrideA, int colStrideA,
+        double[] b, int rowStrideB, int colStrideB,
+        double[] c, int strideC,
+        int m, int n, int k
+    ) {
+        MatrixKernels kernels = kernels();
+        forEachRowBlock(m, (long) m * n * k, (rowFrom, rowTo) -> kernels.gemm(
+            alpha,
+            a, 0, rowStrideA, colStrideA,
+            b, 0, rowStrideB, colStrideB,
+            c, 0, strideC,
+            rowFrom, rowTo, n, k
+        ));
+    }
 
     /*
      * Matrix multiplication
@@ -16,12 +244,14 @@ public class MatrixMath {
             throw new IllegalArgumentException("Mismatching size!");
         }
 
+        // i-j-k order so that the innermost loop walks rows of B and of the output
+        MatrixKernels kernels = kernels();
         double[][] outputMatrix = new double[heightA][widthB];
-        for (int k=0; k<widthB; k++) {
-            for (int i=0; i<heightA; i++) {
-                for (int j=0; j<heightB; j++) {
-                    outputMatrix[i][k] += matrixA[i][j] * matrixB[j][k];
-                }
+        for (int i=0; i<heightA; i++) {
+            double[] rowA = matrixA[i];
+            double[] outputRow = outputMatrix[i];
+            for (int j=0; j<heightB; j++) {
+                kernels.axpy(rowA[j], matrixB[j], 0, outputRow, 0, widthB);
             }
         }
 
@@ -41,11 +271,10 @@ public class MatrixMath {
             throw new IllegalArgumentException("Mismatching size!");
         }
 
+        MatrixKernels kernels = kernels();
         double[] outputVector = new double[heightA];
         for (int i=0; i<heightA; i++) {
-            for (int j=0; j<heightB; j++) {
-                outputVector[i] += matrixA[i][j] * vectorB[j];
-            }
+            outputVector[i] = kernels.dot(matrixA[i], 0, vectorB, 0, heightB);
         }
 
         return outputVector;
@@ -64,12 +293,7 @@ public class MatrixMath {
             throw new IllegalArgumentException("Mismatching size!");
         }
 
-        double sum = 0;
-        for (int i=0; i<heightA; i++) {
-            sum += vectorA[i] * vectorB[i];
-        }
-
-        return sum;
+        return kernels().dot(vectorA, 0, vectorB, 0, heightA);
     }
 
 
@@ -79,9 +303,7 @@ public class MatrixMath {
     public static double[] scalarMultiply(double scalar, double[] vector) {
         int height = vector.length;
         double[] output = new double[height];
-        for (int i=0; i<height; i++) {
-            output[i] = scalar * vector[i];
-        }
+        kernels().scale(scalar, vector, 0, output, 0, height);
 
         return output;
     }
@@ -93,11 +315,10 @@ public class MatrixMath {
     public static double[][] scalarMultiply(double scalar, double[][] matrix) {
         int height = matrix.length;
         int width = matrix[0].length;
+        MatrixKernels kernels = kernels();
         double[][] output = new double[height][width];
         for (int i=0; i<height; i++) {
-            for (int j=0; j<width; j++) {
-                output[i][j] = scalar * matrix[i][j];
-            };
+            kernels.scale(scalar, matrix[i], 0, output[i], 0, width);
         }
 
         return output;
@@ -132,9 +353,7 @@ public class MatrixMath {
         }
 
         double[] output = new double[heightA];
-        for (int i=0; i<heightA; i++) {
-            output[i] = vectorA[i] + vectorB[i];
-        }
+        kernels().add(vectorA, 0, vectorB, 0, output, 0, heightA);
 
         return output;
     }
@@ -152,11 +371,10 @@ public class MatrixMath {
             throw new IllegalArgumentException("Mismatching size!");
         }
 
+        MatrixKernels kernels = kernels();
         double[][] output = new double[heightA][widthA];
         for (int i=0; i<heightA; i++) {
-            for (int j=0; j<widthA; j++) {
-                output[i][j] = matrixA[i][j] + matrixB[i][j];
-            }
+            kernels.add(matrixA[i], 0, matrixB[i], 0, output[i], 0, widthA);
         }
 
         return output;
@@ -205,5 +423,399 @@ public class MatrixMath {
 
         return output;
     }
-    
+
+
+    /*
+     * Matrix multiplication on contiguous row-major matrices
+     */
+    public static DenseMatrix multiply(DenseMatrix matrixA, DenseMatrix matrixB) {
+        if (matrixA.getCols() != matrixB.getRows()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        DenseMatrix output = new DenseMatrix(matrixA.getRows(), matrixB.getCols());
+        gemm(1.0, matrixA, matrixB, 0.0, output);
+
+        return output;
+    }
+
+
+    /*
+     * Matrix vector multiplication on a contiguous row-major matrix
+     */
+    public static double[] multiply(DenseMatrix matrixA, double[] vectorB) {
+        int heightA = matrixA.getRows();
+        int widthA = matrixA.getCols();
+        if (widthA != vectorB.length) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        MatrixKernels kernels = kernels();
+        double[] data = matrixA.getData();
+        double[] outputVector = new double[heightA];
+        forEachRowBlock(heightA, (long) heightA * widthA, (rowFrom, rowTo) -> {
+            for (int i=rowFrom; i<rowTo; i++) {
+                outputVector[i] = kernels.dot(data, matrixA.rowOffset(i), vectorB, 0, widthA);
+            }
+        });
+
+        return outputVector;
+    }
+
+
+    /*
+     * Scalar Multiplication: scalar and contiguous matrix
+     */
+    public static DenseMatrix scalarMultiply(double scalar, DenseMatrix matrix) {
+        int height = matrix.getRows();
+        int width = matrix.getCols();
+        double[] data = matrix.getData();
+        MatrixKernels kernels = kernels();
+        DenseMatrix output = new DenseMatrix(height, width);
+        double[] outputData = output.getData();
+        for (int i=0; i<height; i++) {
+            kernels.scale(scalar, data, matrix.rowOffset(i), outputData, output.rowOffset(i), width);
+        }
+
+        return output;
+    }
+
+
+    /*
+     * Transpose contiguous matrix
+     */
+    public static DenseMatrix transpose(DenseMatrix matrix) {
+        int height = matrix.getRows();
+        int width = matrix.getCols();
+        double[] data = matrix.getData();
+        DenseMatrix output = new DenseMatrix(width, height);
+        double[] outputData = output.getData();
+        for (int i=0; i<height; i++) {
+            int offset = matrix.rowOffset(i);
+            for (int j=0; j<width; j++) {
+                outputData[j * height + i] = data[offset + j];
+            }
+        }
+
+        return output;
+    }
+
+
+    /*
+     * Contiguous matrix addition
+     */
+    public static DenseMatrix add(DenseMatrix matrixA, DenseMatrix matrixB) {
+        int height = matrixA.getRows();
+        int width = matrixA.getCols();
+        if (height != matrixB.getRows() || width != matrixB.getCols()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        double[] dataA = matrixA.getData();
+        double[] dataB = matrixB.getData();
+        MatrixKernels kernels = kernels();
+        DenseMatrix output = new DenseMatrix(height, width);
+        double[] outputData = output.getData();
+        for (int i=0; i<height; i++) {
+            kernels.add(dataA, matrixA.rowOffset(i), dataB, matrixB.rowOffset(i), outputData, output.rowOffset(i), width);
+        }
+
+        return output;
+    }
+
+
+    /*
+     * Return one-hot matrix in contiguous layout
+     */
+    public static DenseMatrix oneHotToDense(int[] vector, int numClasses) {
+        DenseMatrix output = new DenseMatrix(vector.length, numClasses);
+        double[] data = output.getData();
+        for (int i=0; i<vector.length; i++) {
+            data[i * numClasses + vector[i]] = 1;
+        }
+
+        return output;
+    }
+
+
+    /*
+     * In-place GEMM: C = alpha * A * B + beta * C, writing into caller-supplied C.
+     * As in BLAS, C is not read when beta is 0
+     */
+    public static void gemm(double alpha, DenseMatrix matrixA, DenseMatrix matrixB, double beta, DenseMatrix matrixC) {
+        if (matrixA.getCols() != matrixB.getRows()
+            || matrixC.getRows() != matrixA.getRows()
+            || matrixC.getCols() != matrixB.getCols()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        scaleInPlace(beta, matrixC);
+        runGemm(
+            alpha,
+            matrixA.getData(), matrixA.getStride(), 1,
+            matrixB.getData(), matrixB.getStride(), 1,
+            matrixC.getData(), matrixC.getStride(),
+            matrixA.getRows(), matrixB.getCols(), matrixA.getCols()
+        );
+    }
+
+
+    /*
+     * In-place GEMM with A read transposed: C = alpha * A^T * B + beta * C.
+     * A is k x m as stored; no transposed copy is made
+     */
+    public static void gemmTransposeA(double alpha, DenseMatrix matrixA, DenseMatrix matrixB, double beta, DenseMatrix matrixC) {
+        if (matrixA.getRows() != matrixB.getRows()
+            || matrixC.getRows() != matrixA.getCols()
+            || matrixC.getCols() != matrixB.getCols()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        scaleInPlace(beta, matrixC);
+        runGemm(
+            alpha,
+            matrixA.getData(), 1, matrixA.getStride(),
+            matrixB.getData(), matrixB.getStride(), 1,
+            matrixC.getData(), matrixC.getStride(),
+            matrixA.getCols(), matrixB.getCols(), matrixA.getRows()
+        );
+    }
+
+
+    /*
+     * In-place GEMM with B read transposed: C = alpha * A * B^T + beta * C.
+     * B is n x k as stored; no transposed copy is made
+     */
+    public static void gemmTransposeB(double alpha, DenseMatrix matrixA, DenseMatrix matrixB, double beta, DenseMatrix matrixC) {
+        if (matrixA.getCols() != matrixB.getCols()
+            || matrixC.getRows() != matrixA.getRows()
+            || matrixC.getCols() != matrixB.getRows()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        scaleInPlace(beta, matrixC);
+        runGemm(
+            alpha,
+            matrixA.getData(), matrixA.getStride(), 1,
+            matrixB.getData(), 1, matrixB.getStride(),
+            matrixC.getData(), matrixC.getStride(),
+            matrixA.getRows(), matrixB.getRows(), matrixA.getCols()
+        );
+    }
+
+
+    /*
+     * Matrix multiplication of the transpose of A with B: A^T * B
+     */
+    public static DenseMatrix multiplyTransposeA(DenseMatrix matrixA, DenseMatrix matrixB) {
+        DenseMatrix output = new DenseMatrix(matrixA.getCols(), matrixB.getCols());
+        gemmTransposeA(1.0, matrixA, matrixB, 0.0, output);
+
+        return output;
+    }
+
+
+    /*
+     * Matrix multiplication of A with the transpose of B: A * B^T
+     */
+    public static DenseMatrix multiplyTransposeB(DenseMatrix matrixA, DenseMatrix matrixB) {
+        DenseMatrix output = new DenseMatrix(matrixA.getRows(), matrixB.getRows());
+        gemmTransposeB(1.0, matrixA, matrixB, 0.0, output);
+
+        return output;
+    }
+
+
+    /*
+     * In-place vector update: y = y + alpha * x
+     */
+    public static void axpy(double alpha, double[] vectorX, double[] vectorY) {
+        if (vectorX.length != vectorY.length) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        kernels().axpy(alpha, vectorX, 0, vectorY, 0, vectorX.length);
+    }
+
+
+    /*
+     * In-place vector scaling: x = alpha * x
+     */
+    public static void scaleInPlace(double alpha, double[] vector) {
+        kernels().scale(alpha, vector, 0, vector, 0, vector.length);
+    }
+
+
+    /*
+     * Largest absolute entry of a vector (infinity norm)
+     */
+    public static double maxAbs(double[] vector) {
+        double max = 0;
+        for (double val : vector) {
+            double abs = Math.abs(val);
+            if (abs > max) {
+                max = abs;
+            }
+        }
+
+        return max;
+    }
+
+
+    /*
+     * In-place matrix update: Y = Y + alpha * X
+     */
+    public static void axpy(double alpha, DenseMatrix matrixX, DenseMatrix matrixY) {
+        int height = matrixX.getRows();
+        int width = matrixX.getCols();
+        if (height != matrixY.getRows() || width != matrixY.getCols()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        MatrixKernels kernels = kernels();
+        double[] dataX = matrixX.getData();
+        double[] dataY = matrixY.getData();
+        for (int i=0; i<height; i++) {
+            kernels.axpy(alpha, dataX, matrixX.rowOffset(i), dataY, matrixY.rowOffset(i), width);
+        }
+    }
+
+
+    /*
+     * Scaled matrix addition into a caller-supplied output: OUT = alpha * A + beta * B.
+     * The output may alias either input
+     */
+    public static void addScaled(double alpha, DenseMatrix matrixA, double beta, DenseMatrix matrixB, DenseMatrix output) {
+        int height = matrixA.getRows();
+        int width = matrixA.getCols();
+        if (height != matrixB.getRows() || width != matrixB.getCols()
+            || height != output.getRows() || width != output.getCols()) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        double[] dataA = matrixA.getData();
+        double[] dataB = matrixB.getData();
+        double[] outputData = output.getData();
+        MatrixKernels kernels = kernels();
+        for (int i=0; i<height; i++) {
+            kernels.axpby(alpha, dataA, matrixA.rowOffset(i), beta, dataB, matrixB.rowOffset(i), outputData, output.rowOffset(i), width);
+        }
+    }
+
+
+    /*
+     * In-place scaling: X = alpha * X. Scaling by 0 clears the matrix
+     */
+    public static void scaleInPlace(double alpha, DenseMatrix matrix) {
+        MatrixKernels kernels = kernels();
+        double[] data = matrix.getData();
+        for (int i=0; i<matrix.getRows(); i++) {
+            int offset = matrix.rowOffset(i);
+            if (alpha == 0) {
+                java.util.Arrays.fill(data, offset, offset + matrix.getCols(), 0);
+            } else if (alpha != 1) {
+                kernels.scale(alpha, data, offset, data, offset, matrix.getCols());
+            }
+        }
+    }
+
+
+    /*
+     * In-place broadcast addition of a row vector to every row of a matrix
+     */
+    public static void addRowVector(DenseMatrix matrix, double[] vector) {
+        int width = matrix.getCols();
+        if (width != vector.length) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        MatrixKernels kernels = kernels();
+        double[] data = matrix.getData();
+        for (int i=0; i<matrix.getRows(); i++) {
+            int offset = matrix.rowOffset(i);
+            kernels.add(data, offset, vector, 0, data, offset, width);
+        }
+    }
+
+
+    /*
+     * Transpose into a caller-supplied output matrix
+     */
+    public static void transposeInto(DenseMatrix matrix, DenseMatrix output) {
+        int height = matrix.getRows();
+        int width = matrix.getCols();
+        if (output.getRows() != width || output.getCols() != height) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        double[] data = matrix.getData();
+        double[] outputData = output.getData();
+        for (int i=0; i<height; i++) {
+            int offset = matrix.rowOffset(i);
+            for (int j=0; j<width; j++) {
+                outputData[output.rowOffset(j) + i] = data[offset + j];
+            }
+        }
+    }
+
+
+    /*
+     * In-place Cholesky factorization of a symmetric positive definite matrix:
+     * the lower triangle is overwritten with L such that A = L * L^T (the upper
+     * triangle is left untouched). Returns false if the matrix is not positive
+     * definite, in which case its contents are undefined
+     */
+    public static boolean choleskyInPlace(DenseMatrix matrix) {
+        int size = matrix.getRows();
+        if (matrix.getCols() != size) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        MatrixKernels kernels = kernels();
+        double[] data = matrix.getData();
+        for (int j=0; j<size; j++) {
+            int rowJ = matrix.rowOffset(j);
+            double diagonal = data[rowJ + j] - kernels.dot(data, rowJ, data, rowJ, j);
+            if (!(diagonal > 0)) {
+                return false;
+            }
+            double pivot = Math.sqrt(diagonal);
+            data[rowJ + j] = pivot;
+            for (int i=j + 1; i<size; i++) {
+                int rowI = matrix.rowOffset(i);
+                data[rowI + j] = (data[rowI + j] - kernels.dot(data, rowI, data, rowJ, j)) / pivot;
+            }
+        }
+
+        return true;
+    }
+
+
+    /*
+     * Solve A * x = b in place (b is overwritten with x), given the Cholesky
+     * factor L of A from choleskyInPlace
+     */
+    public static void choleskySolve(DenseMatrix factor, double[] vector) {
+        int size = factor.getRows();
+        if (factor.getCols() != size || vector.length != size) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+
+        // Forward substitution: L * z = b
+        double[] data = factor.getData();
+        for (int i=0; i<size; i++) {
+            int row = factor.rowOffset(i);
+            vector[i] = (vector[i] - kernels().dot(data, row, vector, 0, i)) / data[row + i];
+        }
+
+        // Back substitution: L^T * x = z
+        for (int i=size - 1; i>=0; i--) {
+            double sum = vector[i];
+            for (int j=i + 1; j<size; j++) {
+                sum -= data[factor.rowOffset(j) + i] * vector[j];
+            }
+            vector[i] = sum / data[factor.rowOffset(i) + i];
+        }
+    }
+
 }
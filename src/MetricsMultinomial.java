@@ -1,10 +1,11 @@
 class MetricsMultinomial {
     private final int[] trueLabels;
     private final int[] predictedLabels;
+    private final double[] sampleWeights; // null for unit weights
     private final int numClasses;
-    private final int sampleSize;
-    private final int[][] confusionMatrix;
-    private final int[] support;
+    private final double sampleSize;
+    private final double[][] confusionMatrix;
+    private final double[] support;
 
 
     /*
@@ -20,33 +21,64 @@ class MetricsMultinomial {
         int[] predictedLabels,
         int numClasses
     ) {
-        this.sampleSize = trueLabels.length;
-        if (sampleSize != predictedLabels.length) {
+        this(trueLabels, predictedLabels, null, numClasses);
+    }
+
+
+    /*
+     * Weighted metrics: sample i counts sampleWeights[i] times (e.g. duplicate
+     * counts, see DataCompressor). Counts below are then sums of weights
+     */
+    public MetricsMultinomial(
+        int[] trueLabels,
+        int[] predictedLabels,
+        double[] sampleWeights,
+        int numClasses
+    ) {
+        if (trueLabels.length != predictedLabels.length
+            || (sampleWeights != null && sampleWeights.length != trueLabels.length)) {
             throw new IllegalArgumentException("Sizes do not match!");
         }
         this.trueLabels = trueLabels;
         this.predictedLabels = predictedLabels;
+        this.sampleWeights = sampleWeights;
         this.numClasses = numClasses;
+        this.sampleSize = weightOf(trueLabels.length);
         this.confusionMatrix = computeConfusionMatrix();
         this.support = computeSupport();
     }
 
 
+    /*
+     * Total weight of the first count samples
+     */
+    private double weightOf(int count) {
+        if (sampleWeights == null) {
+            return count;
+        }
+        double total = 0;
+        for (int i=0; i<count; i++) {
+            total += sampleWeights[i];
+        }
+        return total;
+    }
+
+
     /*
      * Return Confusion Matrix
      */
-    private int[][] computeConfusionMatrix() {
-        int[][] matrix = new int[numClasses][numClasses];
-        for (int i=0; i<sampleSize; i++) {
+    private double[][] computeConfusionMatrix() {
+        double[][] matrix = new double[numClasses][numClasses];
+        for (int i=0; i<trueLabels.length; i++) {
             int actual = trueLabels[i];
             int predicted = predictedLabels[i];
-            matrix[actual][predicted]++;
+            matrix[actual][predicted] += sampleWeights == null ? 1 : sampleWeights[i];
         }
 
         return matrix;
     }
 
-    public int[][] getConfusionMatrix() {
+    public double[][] getConfusionMatrix() {
         return confusionMatrix;
     }
 
@@ -54,7 +86,7 @@ class MetricsMultinomial {
     /* 
      * Return True Positive (TP) count for given class
      */
-    public int getClassTP(int classID) {
+    public double getClassTP(int classID) {
         // Return CM index that holds number of predictions where True=Predicted
         return confusionMatrix[classID][classID];
     }
@@ -63,8 +95,8 @@ class MetricsMultinomial {
     /* 
      * Return False Positive (FP) count for given class
      */
-    public int getClassFP(int classID) {
-        int count = 0;
+    public double getClassFP(int classID) {
+        double count = 0;
         // Accumulate values where given class was falsely predicted
         for (int i = 0; i < numClasses; i++) {
             if (i == classID) {
@@ -79,8 +111,8 @@ class MetricsMultinomial {
     /* 
      * Return True Negative (TN) count for given class
      */   
-    public int getClassTN(int classID) {
-        int count = 0;
+    public double getClassTN(int classID) {
+        double count = 0;
         // Accumulate all values where given class was correctly not selected
         for (int i=0; i<numClasses; i++) {
             for (int j=0; j<numClasses; j++) {
@@ -98,8 +130,8 @@ class MetricsMultinomial {
     /* 
      * Return False Negativve (FN) count for given class
      */
-    public int getClassFN(int classID) {
-        int count = 0;
+    public double getClassFN(int classID) {
+        double count = 0;
         // Accumulate all values where given class was incorrectly missed
         for (int j=0; j<numClasses; j++) {
             if (j == classID) {
@@ -116,10 +148,10 @@ class MetricsMultinomial {
      * Return array where each index holds the number of true labels corresponding
      * to the class who's ID is that index
      */
-    private int[] computeSupport() {
-        int[] support = new int[numClasses]; 
-        for (int i=0; i<sampleSize; i++) {
-            support[trueLabels[i]]++;
+    private double[] computeSupport() {
+        double[] support = new double[numClasses]; 
+        for (int i=0; i<trueLabels.length; i++) {
+            support[trueLabels[i]] += sampleWeights == null ? 1 : sampleWeights[i];
         }
 
         return support;
@@ -130,12 +162,12 @@ class MetricsMultinomial {
      * Return ratio of correct predictions to total sample size
      */
     public double getAccuracy() {
-        int correctPredictions = 0;
+        double correctPredictions = 0;
         for (int i=0; i<numClasses; i++) {
             correctPredictions += getClassTP(i);
         }
 
-        return (double)correctPredictions / sampleSize;
+        return correctPredictions / sampleSize;
     }
 
 
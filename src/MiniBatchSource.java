@@ -0,0 +1,51 @@
+import java.util.Iterator;
+import java.util.Random;
+
+/*
+ * Source of training mini-batches for stochastic gradient descent. Each call to
+ * epoch() starts a new pass over the training rows in an order drawn from the
+ * given random generator, so implementations can stream rows from wherever
+ * they live without the full training matrix ever being materialized
+ */
+interface MiniBatchSource {
+
+    int getNumExamples();
+
+    int getNumFeatures();
+
+    /*
+     * Iterate over one epoch of batches. A batch may be backed by buffers that
+     * are reused by the next call to next()
+     */
+    Iterator<Batch> epoch(Random random);
+
+
+    /*
+     * Wrapper class for a batch of training rows and their labels
+     */
+    static class Batch {
+        private final DenseMatrix data;
+        private final int[] labels;
+
+        public Batch(DenseMatrix data, int[] labels) {
+            if (labels.length < data.getRows()) {
+                throw new IllegalArgumentException("Sizes do not match!");
+            }
+            this.data = data;
+            this.labels = labels;
+        }
+
+        public DenseMatrix getData() {
+            return data;
+        }
+
+        public int[] getLabels() {
+            return labels;
+        }
+
+        public int getRows() {
+            return data.getRows();
+        }
+    }
+
+}
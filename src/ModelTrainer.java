@@ -1,11 +1,56 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
 public class ModelTrainer {
     private static final int DEFAULT_NUM_FOLDS = 5;
     private final DataUnits.DataBlock masterDataBlock;
+    private final double[][] masterData;
+    private final int[] masterLabels;
+    private final TrainerOptions trainerOption;
+    // Set when splits come from a fold cache: the processed rows of the whole dataset
+    private FoldCache foldCache;
+    private DenseMatrix processedData;
     private Scaler.NormalDistParams masterDataScaledParams;
+    private LogisticRegressionMultinomial.Solver solver = LogisticRegressionMultinomial.Solver.GRADIENT_DESCENT;
+    private LogisticRegressionMultinomial.StepStrategy stepStrategy = LogisticRegressionMultinomial.StepStrategy.CONSTANT;
+    private int tuningParallelism = 1;
+    private TuningThreads tuningThreads = TuningThreads.PLATFORM;
+    // Shared by every training of the running search (null when run sequentially)
+    private ExecutorService tuningExecutor;
+    private Semaphore tuningPermits;
+    private boolean warmStartPath = false;
+    private SearchStrategy searchStrategy = SearchStrategy.GRID;
+    private int halvingRate = DEFAULT_HALVING_RATE;
+    private int randomSamples = DEFAULT_RANDOM_SAMPLES;
+    private long timeBudgetMillis = 0;  // no bound
+    private long randomSeed = DEFAULT_RANDOM_SEED;
+    private volatile LogisticRegressionMultinomial.Options bestOptionsSoFar;
+    private volatile boolean stopRequested;
+    private double tunedAccuracy = Double.NaN;
+    private double[] candidateAccuracies;
+    private boolean tuningComplete;
+    private TuningCache tuningCache;
+    private int maxDriftRows;
     // Search space for hyper-parameters
     private static final double[] DEFAULT_LAMBDA_RANGE = new double[]{1e-5, 1e-4, 1e-3, 1e-2, 1e-1, 1};
     private static final double[] DEFAULT_TOLERANCE_RANGE = new double[]{1e-4, 1e-5, 1e-6};
     private static final int[] DEFAULT_MAX_ITER_RANGE = new int[]{100, 300, 900};
+    private static final int DEFAULT_HALVING_RATE = 3;
+    private static final int MIN_HALVING_FOLDS = 2;
+    private static final int DEFAULT_RANDOM_SAMPLES = 30;
+    private static final long DEFAULT_RANDOM_SEED = 0;
+    private double[] lambdaRange = DEFAULT_LAMBDA_RANGE;
+    private double[] toleranceRange = DEFAULT_TOLERANCE_RANGE;
+    private int[] maxIterRange = DEFAULT_MAX_ITER_RANGE;
     private static final int _TEST_NUM_CLASSES = 4; // <-- This should be refactored to be a passable param.
 
 
@@ -14,6 +59,9 @@ public class ModelTrainer {
      * test and train sets, and save the packaged data block as an instanced variable
      */
     public ModelTrainer(double[][] masterData, int[] masterLabels, TrainerOptions option) {
+        this.masterData = masterData;
+        this.masterLabels = masterLabels;
+        this.trainerOption = option;
         DataUnits.DataBlock rawDataBlock = new StratifiedDataSplitter(masterData, masterLabels, DEFAULT_NUM_FOLDS, _TEST_NUM_CLASSES).getDataBlock(0); 
         DataUnits.DataBlock finalDataBlock = rawDataBlock;
         
@@ -43,6 +91,30 @@ public class ModelTrainer {
         this.masterDataBlock = finalDataBlock;
     }
 
+    /*
+     * Same as above, with the splits and scaling parameters taken from a fold
+     * cache shared by every trainer over the same (growing) dataset, instead of
+     * re-split and re-fitted from scratch. The cache is first brought up to date
+     * with any rows appended since it was last used
+     */
+    public ModelTrainer(double[][] masterData, int[] masterLabels, TrainerOptions option, FoldCache foldCache) {
+        this.masterData = masterData;
+        this.masterLabels = masterLabels;
+        this.trainerOption = option;
+        foldCache.update(masterData, masterLabels);
+        DenseMatrix processed = DenseMatrix.fromArray(masterData);
+        if (option == TrainerOptions.SCALE || option == TrainerOptions.SCALE_AND_WEIGHT) {
+            this.masterDataScaledParams = foldCache.getTrainingScalingParams(0);
+            processed = Scaler.toNormalizedMatrix(processed, masterDataScaledParams);
+        }
+        if (option == TrainerOptions.WEIGHT || option == TrainerOptions.SCALE_AND_WEIGHT) {
+            processed = Weighter.toWeightedMatrix(processed);
+        }
+        this.foldCache = foldCache;
+        this.processedData = processed;
+        this.masterDataBlock = getCachedDataBlock(foldCache, 0);
+    }
+
     /*
      * Apply data splitting, packaging into test and train sets, and save the packaged 
      * data block as an instanced variable. This flow does not apply scalling and weighting
@@ -51,10 +123,236 @@ public class ModelTrainer {
         this(masterData, masterLabels, TrainerOptions.DO_NOT_PREPROCESS);      
     }
 
+    /*
+     * Empty fold cache matching this trainer's splits, to share between the
+     * trainers of a growing dataset
+     */
+    public static FoldCache newFoldCache() {
+        return new FoldCache(DEFAULT_NUM_FOLDS, _TEST_NUM_CLASSES);
+    }
+
     public Scaler.NormalDistParams getMasterDataScaledParams() {
         return masterDataScaledParams;
     }
 
+    /*
+     * Number of rows in the master training set (the rows scaling parameters
+     * and final models are computed from)
+     */
+    public int getMasterTrainingSize() {
+        return masterDataBlock.getTrainSet().getLabels().length;
+    }
+
+    /*
+     * Select the optimizer used for models trained during tuning (gradient
+     * descent by default)
+     */
+    public void setSolver(LogisticRegressionMultinomial.Solver solver) {
+        this.solver = solver;
+    }
+
+    public LogisticRegressionMultinomial.Solver getSolver() {
+        return solver;
+    }
+
+    /*
+     * Select the step size rule used with the gradient descent solver
+     * (constant learning rate by default)
+     */
+    public void setStepStrategy(LogisticRegressionMultinomial.StepStrategy stepStrategy) {
+        this.stepStrategy = stepStrategy;
+    }
+
+    public LogisticRegressionMultinomial.StepStrategy getStepStrategy() {
+        return stepStrategy;
+    }
+
+    /*
+     * Run up to parallelism grid-search trainings at once, on platform or virtual
+     * threads (1, the default, runs them one after another on the calling
+     * thread). The tuned options do not depend on this setting
+     */
+    public void setTuningParallelism(int parallelism, TuningThreads threads) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive!");
+        }
+        this.tuningParallelism = parallelism;
+        this.tuningThreads = threads;
+    }
+
+    public int getTuningParallelism() {
+        return tuningParallelism;
+    }
+
+    /*
+     * Warm-start each tuning fit from the neighbouring lambda's solution on the
+     * same fold (off by default). Solvers that converge (L-BFGS, Newton) then
+     * need only a few iterations per fit and reach the same optima; results of
+     * budget-limited gradient descent depend on the starting point, so its
+     * tuned options may change
+     */
+    public void setWarmStartPath(boolean warmStartPath) {
+        this.warmStartPath = warmStartPath;
+    }
+
+    public boolean getWarmStartPath() {
+        return warmStartPath;
+    }
+
+    /*
+     * Replace the hyper-parameter search space (lambdas are searched in
+     * increasing order, the other ranges in the order given)
+     */
+    public void setSearchSpace(double[] lambdas, double[] tolerances, int[] maxIters) {
+        if (lambdas.length == 0 || tolerances.length == 0 || maxIters.length == 0) {
+            throw new IllegalArgumentException("Search space must not be empty!");
+        }
+        for (double lambda : lambdas) {
+            if (!(lambda >= 0)) {
+                throw new IllegalArgumentException("Lambda must be non-negative!");
+            }
+        }
+        for (double tolerance : tolerances) {
+            if (!(tolerance > 0)) {
+                throw new IllegalArgumentException("Tolerance must be positive!");
+            }
+        }
+        for (int maxIter : maxIters) {
+            if (maxIter <= 0) {
+                throw new IllegalArgumentException("Max iterations must be positive!");
+            }
+        }
+        this.lambdaRange = lambdas.clone();
+        Arrays.sort(this.lambdaRange);
+        this.toleranceRange = tolerances.clone();
+        this.maxIterRange = maxIters.clone();
+    }
+
+    /*
+     * Exhaustive grid (the default); successive halving, where every lambda is
+     * scored on two folds by its best candidate, the best 1/rate of the lambdas
+     * are kept, and the survivors are scored on rate times as many folds until
+     * all folds are used (whole lambdas are dropped, as one training per lambda
+     * and fold scores all of its tolerances and maxIters); or random search,
+     * scoring a fixed number of samples of lambda, tolerance and maxIter drawn
+     * log-uniformly within the search space's bounds
+     */
+    public void setSearchStrategy(SearchStrategy searchStrategy) {
+        this.searchStrategy = searchStrategy;
+    }
+
+    public SearchStrategy getSearchStrategy() {
+        return searchStrategy;
+    }
+
+    public void setHalvingRate(int halvingRate) {
+        if (halvingRate < 2) {
+            throw new IllegalArgumentException("Halving rate must be at least 2!");
+        }
+        this.halvingRate = halvingRate;
+    }
+
+    public int getHalvingRate() {
+        return halvingRate;
+    }
+
+    /*
+     * Number of samples a random search scores; with a fixed seed the result
+     * does not depend on the machine
+     */
+    public void setRandomSamples(int randomSamples) {
+        if (randomSamples <= 0) {
+            throw new IllegalArgumentException("Random samples must be positive!");
+        }
+        this.randomSamples = randomSamples;
+    }
+
+    public int getRandomSamples() {
+        return randomSamples;
+    }
+
+    /*
+     * Upper bound on a random search's wall-clock time, as a safety net (none by
+     * default): once it is spent the search returns its best so far after the
+     * sample in progress, even if fewer samples were scored. At least one sample
+     * is always scored
+     */
+    public void setTimeBudget(long timeBudgetMillis) {
+        if (timeBudgetMillis <= 0) {
+            throw new IllegalArgumentException("Time budget must be positive!");
+        }
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public long getTimeBudget() {
+        return timeBudgetMillis;
+    }
+
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+
+    /*
+     * Best options of the running (or last) tuning so far; a random search
+     * starts from the solver's default options and updates this after every
+     * sample, the other strategies set it when they finish. Safe to call from
+     * another thread
+     */
+    public LogisticRegressionMultinomial.Options getBestOptionsSoFar() {
+        return bestOptionsSoFar;
+    }
+
+    /*
+     * Mean cross-validation accuracy of the last tuned (or cached) options
+     */
+    public double getTunedAccuracy() {
+        return tunedAccuracy;
+    }
+
+    /*
+     * Mean cross-validation accuracy of every candidate of the last grid or
+     * halving search, in grid (lambda -> tolerance -> maxIter) order; NaN for
+     * candidates dropped by halving
+     */
+    public double[] getCandidateAccuracies() {
+        if (candidateAccuracies == null) {
+            throw new IllegalStateException("No grid search has run");
+        }
+        return candidateAccuracies.clone();
+    }
+
+    /*
+     * Whether the last tuning ran to completion: false when a random search was
+     * stopped or ran out of time before scoring all its samples
+     */
+    public boolean isTuningComplete() {
+        return tuningComplete;
+    }
+
+    /*
+     * Look tuning results up in (and record them to) an on-disk cache keyed by
+     * the dataset and the tuning setup. Results tuned before at most
+     * maxDriftRows rows were appended to the dataset are reused; once it has
+     * drifted further, tuning runs again (0 reuses exact matches only). Only
+     * complete searches are recorded
+     */
+    public void setTuningCache(TuningCache tuningCache, int maxDriftRows) {
+        if (maxDriftRows < 0) {
+            throw new IllegalArgumentException("Drift must be non-negative!");
+        }
+        this.tuningCache = tuningCache;
+        this.maxDriftRows = maxDriftRows;
+    }
+
+    /*
+     * Make a running random search return its best options once the sample in
+     * progress is scored (a search that has not started yet stops after its
+     * first sample). Safe to call from another thread
+     */
+    public void stopTuning() {
+        this.stopRequested = true;
+    }
+
 
     /*
      * Wrapper class for holding a trained model, performance metrix set, and options set
@@ -132,22 +430,55 @@ public class ModelTrainer {
         DO_NOT_PREPROCESS
     }
 
+    /*
+     * Kind of threads running parallel grid search
+     */
+    public static enum TuningThreads {
+        PLATFORM,
+        VIRTUAL
+    }
+
+
+    /*
+     * Hyper-parameter search strategies for tuning
+     */
+    public static enum SearchStrategy {
+        GRID,
+        SUCCESSIVE_HALVING,
+        RANDOM
+    }
+
 
     /*
      * Get a packaged model with metrics, trained using provided options
      */
-    public TrainedModel getTrainedModel(LogisticRegressionMultinomial.Options options) { 
+    public TrainedModel getTrainedModel(LogisticRegressionMultinomial.Options options) {
+        return getTrainedModel(options, null);
+    }
+
+
+    /*
+     * Get a packaged model with metrics, trained using provided options and
+     * warm-started from the parameters of a previous model (null for a cold start)
+     */
+    public TrainedModel getTrainedModel(
+        LogisticRegressionMultinomial.Options options,
+        LogisticRegressionMultinomial initialModel
+    ) {
         // Get master training data set (from stratified data split)
         DataUnits.DataSet masterTrainingSet = masterDataBlock.getTrainSet();
-        double[][] masterTrainingData = masterTrainingSet.getData();
+        DenseMatrix masterTrainingData = masterTrainingSet.getMatrix();
         int[] masterTrainingLabels = masterTrainingSet.getLabels();
 
         // Train a model using the master training data and provided options
-        LogisticRegressionMultinomial finalModel = new LogisticRegressionMultinomial(masterTrainingData, masterTrainingLabels, _TEST_NUM_CLASSES, options);
+        LogisticRegressionMultinomial finalModel = initialModel == null
+            ? new LogisticRegressionMultinomial(masterTrainingData, masterTrainingLabels, _TEST_NUM_CLASSES, options)
+            : new LogisticRegressionMultinomial(masterTrainingData, masterTrainingLabels, _TEST_NUM_CLASSES, options,
+                initialModel.getWeights(), initialModel.getBiases());
         
         // Get master testing data set (from stratified data split)
         DataUnits.DataSet masterTestingSet = masterDataBlock.getTestSet();
-        double[][] masterTestingData = masterTestingSet.getData();
+        DenseMatrix masterTestingData = masterTestingSet.getMatrix();
         int[] masterTestingLabels = masterTestingSet.getLabels();  
 
         // Measure performance metrics using holdout master test data set
@@ -177,9 +508,461 @@ public class ModelTrainer {
 
 
     /*
-     * Perform model tuning using hyper-parameter grid search and get best parameters (i.e. options)
+     * Perform model tuning using hyper-parameter search (grid, successive
+     * halving or random) and get best parameters (i.e. options), or take them
+     * from the tuning cache if one is set and holds a result for this data
      */
     public LogisticRegressionMultinomial.Options getTunedOptions() {
+        if (tuningCache == null) {
+            return searchOptions();
+        }
+
+        String setup = getTuningSetup();
+        try {
+            TuningCache.Entry entry = tuningCache.lookup(setup, masterData, masterLabels, maxDriftRows);
+            if (entry != null) {
+                tunedAccuracy = entry.getAccuracy();
+                tuningComplete = true;
+                bestOptionsSoFar = buildOptions(entry.getLambda(), entry.getTolerance(), entry.getMaxIter());
+                return bestOptionsSoFar;
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not read tuning cache: " + ex.getMessage());
+        }
+
+        LogisticRegressionMultinomial.Options options = searchOptions();
+        if (!tuningComplete) {
+            return options;
+        }
+        try {
+            tuningCache.store(setup, masterData, masterLabels,
+                options.getLambda(), options.getTolerance(), options.getMaxIter(), tunedAccuracy);
+        } catch (IOException ex) {
+            System.err.println("Could not write tuning cache: " + ex.getMessage());
+        }
+        return options;
+    }
+
+
+    /*
+     * Everything besides the data that the tuned options depend on, as the
+     * tuning cache's key prefix
+     */
+    private String getTuningSetup() {
+        StringBuilder setup = new StringBuilder()
+            .append("preprocessing=").append(trainerOption)
+            .append(";folds=").append(DEFAULT_NUM_FOLDS)
+            .append(";classes=").append(_TEST_NUM_CLASSES)
+            .append(";solver=").append(solver)
+            .append(";stepStrategy=").append(stepStrategy)
+            .append(";search=").append(searchStrategy)
+            .append(";lambdas=").append(Arrays.toString(lambdaRange))
+            .append(";tolerances=").append(Arrays.toString(toleranceRange))
+            .append(";maxIters=").append(Arrays.toString(maxIterRange))
+            .append(";warmStart=").append(warmStartPath)
+            .append(";foldCache=").append(foldCache != null);
+        if (searchStrategy == SearchStrategy.SUCCESSIVE_HALVING) {
+            setup.append(";halvingRate=").append(halvingRate);
+        }
+        if (searchStrategy == SearchStrategy.RANDOM) {
+            setup.append(";samples=").append(randomSamples).append(";seed=").append(randomSeed);
+        }
+        return setup.append('\n').toString();
+    }
+
+
+    /*
+     * Run the configured hyper-parameter search
+     */
+    private LogisticRegressionMultinomial.Options searchOptions() {
+        openTuningExecutor();
+        try {
+            DataUnits.DataBlock[] folds = getValidationFolds();
+            return searchStrategy == SearchStrategy.RANDOM ? getRandomSearchOptions(folds) : getGridSearchOptions(folds);
+        } finally {
+            closeTuningExecutor();
+            // Cleared when the search ends, so a stop requested before it started still applies
+            stopRequested = false;
+        }
+    }
+
+
+    /*
+     * Grid search, or successive halving over the grid
+     */
+    private LogisticRegressionMultinomial.Options getGridSearchOptions(DataUnits.DataBlock[] folds) {
+        // Candidates in grid (lambda -> tolerance -> maxIter) order
+        int combinations = toleranceRange.length * maxIterRange.length;
+        int numCandidates = lambdaRange.length * combinations;
+        boolean[] candidates = new boolean[numCandidates];
+        Arrays.fill(candidates, true);
+        int remaining = lambdaRange.length;
+        double[] totalAccuracies = new double[numCandidates];
+        int evaluatedFolds = 0;
+        int budget = searchStrategy == SearchStrategy.GRID ? DEFAULT_NUM_FOLDS : MIN_HALVING_FOLDS;
+        while (true) {
+            int targetFolds = Math.min(DEFAULT_NUM_FOLDS, budget);
+            addValidationAccuracies(folds, candidates, evaluatedFolds, targetFolds, totalAccuracies);
+            evaluatedFolds = targetFolds;
+            if (evaluatedFolds == DEFAULT_NUM_FOLDS) {
+                break;
+            }
+
+            // Keep the best 1/rate of the lambdas, ranked by their best candidate (ties
+            // in grid order), for a rate times larger budget
+            double[] lambdaAccuracies = new double[lambdaRange.length];
+            List<Integer> ranking = new ArrayList<>();
+            for (int l=0; l<lambdaRange.length; l++) {
+                if (candidates[l * combinations]) {
+                    lambdaAccuracies[l] = Double.NEGATIVE_INFINITY;
+                    for (int g=l * combinations; g<(l + 1) * combinations; g++) {
+                        lambdaAccuracies[l] = Math.max(lambdaAccuracies[l], totalAccuracies[g]);
+                    }
+                    ranking.add(l);
+                }
+            }
+            ranking.sort((a, b) -> Double.compare(lambdaAccuracies[b], lambdaAccuracies[a]));
+            remaining = (remaining + halvingRate - 1) / halvingRate;
+            for (int r=remaining; r<ranking.size(); r++) {
+                int l = ranking.get(r);
+                Arrays.fill(candidates, l * combinations, (l + 1) * combinations, false);
+            }
+            budget *= halvingRate;
+        }
+
+        // Search (i.e. tuning): results are reduced in grid order, so the choice
+        // does not depend on how the trainings were scheduled
+        double bestAccuracy = Integer.MIN_VALUE;
+        int best = -1;
+        candidateAccuracies = new double[numCandidates];
+        Arrays.fill(candidateAccuracies, Double.NaN);
+        for (int g=0; g<numCandidates; g++) {
+            if (!candidates[g]) {
+                continue;
+            }
+
+            // Measure mean accuracy of cross-validation for current options and update best parameters if performance gain detected
+            double meanCurrentAccuracy = totalAccuracies[g] / evaluatedFolds;
+            candidateAccuracies[g] = meanCurrentAccuracy;
+            if (meanCurrentAccuracy > bestAccuracy) {
+                bestAccuracy = meanCurrentAccuracy;
+                best = g;
+            }
+        }
+
+        tunedAccuracy = bestAccuracy;
+        tuningComplete = true;
+        bestOptionsSoFar = buildOptions(
+            lambdaRange[best / combinations],
+            toleranceRange[best % combinations / maxIterRange.length],
+            maxIterRange[best % maxIterRange.length]);
+        return bestOptionsSoFar;
+    }
+
+
+    /*
+     * Score random samples of the search space (each on every fold) until all
+     * samples are scored, tuning is stopped or the time budget is spent,
+     * keeping the best so far. Samples are scored in batches large enough to
+     * keep every parallel training busy, and reduced in sampling order
+     */
+    private LogisticRegressionMultinomial.Options getRandomSearchOptions(DataUnits.DataBlock[] folds) {
+        long start = System.nanoTime();
+        Random random = new Random(randomSeed);
+        double minLambda = Double.POSITIVE_INFINITY;
+        double maxLambda = 0;
+        for (double lambda : lambdaRange) {
+            if (lambda > 0) {
+                minLambda = Math.min(minLambda, lambda);
+            }
+            maxLambda = Math.max(maxLambda, lambda);
+        }
+        double minTolerance = Double.POSITIVE_INFINITY;
+        double maxTolerance = 0;
+        for (double tolerance : toleranceRange) {
+            minTolerance = Math.min(minTolerance, tolerance);
+            maxTolerance = Math.max(maxTolerance, tolerance);
+        }
+        int minMaxIter = Integer.MAX_VALUE;
+        int maxMaxIter = 0;
+        for (int maxIter : maxIterRange) {
+            minMaxIter = Math.min(minMaxIter, maxIter);
+            maxMaxIter = Math.max(maxMaxIter, maxIter);
+        }
+
+        // A usable answer before the first sample is scored
+        bestOptionsSoFar = new LogisticRegressionMultinomial.Options.Builder()
+            .setSolver(solver)
+            .setStepStrategy(stepStrategy)
+            .build();
+        double bestAccuracy = Double.NEGATIVE_INFINITY;
+        int batchSize = (tuningParallelism + DEFAULT_NUM_FOLDS - 1) / DEFAULT_NUM_FOLDS;
+        int samples = 0;
+        do {
+            int batch = Math.min(batchSize, randomSamples - samples);
+            double[] lambdas = new double[batch];
+            double[] tolerances = new double[batch];
+            int[] maxIters = new int[batch];
+            List<Callable<FoldPath>> trainings = new ArrayList<>();
+            for (int s=0; s<batch; s++) {
+                // Without a positive lambda in the space, the only choice is no regularization
+                double lambda = maxLambda > 0 ? sampleLogUniform(random, minLambda, maxLambda) : 0;
+                double tolerance = sampleLogUniform(random, minTolerance, maxTolerance);
+                int maxIter = (int) Math.round(sampleLogUniform(random, minMaxIter, maxMaxIter));
+                lambdas[s] = lambda;
+                tolerances[s] = tolerance;
+                maxIters[s] = maxIter;
+                for (DataUnits.DataBlock fold : folds) {
+                    trainings.add(() -> getValidationPath(
+                        fold, new double[]{lambda}, new double[]{tolerance}, new int[]{maxIter}, false));
+                }
+            }
+
+            List<FoldPath> results = runTrainings(trainings);
+            for (int s=0; s<batch; s++) {
+                double runningTotalAccuracy = 0;
+                for (int i=0; i<DEFAULT_NUM_FOLDS; i++) {
+                    runningTotalAccuracy += results.get(s * DEFAULT_NUM_FOLDS + i).accuracies[0][0];
+                }
+                double meanCurrentAccuracy = runningTotalAccuracy / DEFAULT_NUM_FOLDS;
+                if (meanCurrentAccuracy > bestAccuracy) {
+                    bestAccuracy = meanCurrentAccuracy;
+                    bestOptionsSoFar = buildOptions(lambdas[s], tolerances[s], maxIters[s]);
+                }
+            }
+            samples += batch;
+        } while (samples < randomSamples && !stopRequested
+            && (timeBudgetMillis == 0 || System.nanoTime() - start < timeBudgetMillis * 1000000));
+
+        tunedAccuracy = bestAccuracy;
+        tuningComplete = samples == randomSamples;
+        return bestOptionsSoFar;
+    }
+
+
+    private static double sampleLogUniform(Random random, double min, double max) {
+        return Math.exp(Math.log(min) + random.nextDouble() * (Math.log(max) - Math.log(min)));
+    }
+
+
+    /*
+     * Add every candidate's validation accuracy on folds [foldFrom, foldTo) to
+     * its running total (summed in fold order). Each fold walks the lambda path;
+     * full-batch runs with a larger tolerance or smaller budget are prefixes of
+     * the longest run, so one walk covers every (tolerance, maxIter) combination
+     * of its lambdas. Without warm starts each lambda walks on its own so more
+     * trainings can run at once; mini-batch SGD reports no iterates, so it walks
+     * once per candidate
+     */
+    private void addValidationAccuracies(
+        DataUnits.DataBlock[] folds, boolean[] candidates, int foldFrom, int foldTo, double[] totalAccuracies
+    ) {
+        int numTolerances = toleranceRange.length;
+        int numMaxIters = maxIterRange.length;
+        List<Walk> walks = new ArrayList<>();
+        for (int i=foldFrom; i<foldTo; i++) {
+            if (solver == LogisticRegressionMultinomial.Solver.MINI_BATCH_SGD) {
+                for (int g=0; g<candidates.length; g++) {
+                    if (candidates[g]) {
+                        int combination = g % (numTolerances * numMaxIters);
+                        walks.add(new Walk(i, new int[]{g / (numTolerances * numMaxIters)},
+                            new int[]{combination / numMaxIters}, new int[]{combination % numMaxIters}));
+                    }
+                }
+            } else if (warmStartPath) {
+                addWalk(walks, i, candidates, 0, lambdaRange.length);
+            } else {
+                for (int l=0; l<lambdaRange.length; l++) {
+                    addWalk(walks, i, candidates, l, l + 1);
+                }
+            }
+        }
+
+        List<Callable<FoldPath>> trainings = new ArrayList<>();
+        for (Walk walk : walks) {
+            trainings.add(() -> getValidationPath(
+                folds[walk.fold], walk.lambdaValues(), walk.toleranceValues(), walk.maxIterValues(), warmStartPath));
+        }
+        List<FoldPath> results = runTrainings(trainings);
+
+        // Walks are in fold order, so every total is summed in fold order
+        for (int w=0; w<walks.size(); w++) {
+            Walk walk = walks.get(w);
+            double[][] path = results.get(w).accuracies;
+            for (int l=0; l<walk.lambdas.length; l++) {
+                for (int t=0; t<walk.tolerances.length; t++) {
+                    for (int m=0; m<walk.maxIters.length; m++) {
+                        int g = (walk.lambdas[l] * numTolerances + walk.tolerances[t]) * numMaxIters + walk.maxIters[m];
+                        if (candidates[g]) {
+                            totalAccuracies[g] += path[l][t * walk.maxIters.length + m];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /*
+     * Plan a walk on a fold over the lambdas in [lambdaFrom, lambdaTo) that still
+     * have candidates, with every tolerance and maxIter used by one of them
+     */
+    private void addWalk(List<Walk> walks, int fold, boolean[] candidates, int lambdaFrom, int lambdaTo) {
+        boolean[] lambdaUsed = new boolean[lambdaRange.length];
+        boolean[] toleranceUsed = new boolean[toleranceRange.length];
+        boolean[] maxIterUsed = new boolean[maxIterRange.length];
+        boolean any = false;
+        for (int l=lambdaFrom; l<lambdaTo; l++) {
+            for (int t=0; t<toleranceRange.length; t++) {
+                for (int m=0; m<maxIterRange.length; m++) {
+                    if (candidates[(l * toleranceRange.length + t) * maxIterRange.length + m]) {
+                        lambdaUsed[l] = toleranceUsed[t] = maxIterUsed[m] = any = true;
+                    }
+                }
+            }
+        }
+        if (any) {
+            walks.add(new Walk(fold, indicesOf(lambdaUsed), indicesOf(toleranceUsed), indicesOf(maxIterUsed)));
+        }
+    }
+
+
+    private static int[] indicesOf(boolean[] used) {
+        int count = 0;
+        for (boolean u : used) {
+            count += u ? 1 : 0;
+        }
+        int[] indices = new int[count];
+        int next = 0;
+        for (int i=0; i<used.length; i++) {
+            if (used[i]) {
+                indices[next++] = i;
+            }
+        }
+        return indices;
+    }
+
+
+    /*
+     * One planned lambda walk: a fold and indices into the search ranges
+     */
+    private class Walk {
+        private final int fold;
+        private final int[] lambdas;
+        private final int[] tolerances;
+        private final int[] maxIters;
+
+        Walk(int fold, int[] lambdas, int[] tolerances, int[] maxIters) {
+            this.fold = fold;
+            this.lambdas = lambdas;
+            this.tolerances = tolerances;
+            this.maxIters = maxIters;
+        }
+
+        double[] lambdaValues() {
+            double[] values = new double[lambdas.length];
+            for (int l=0; l<lambdas.length; l++) {
+                values[l] = lambdaRange[lambdas[l]];
+            }
+            return values;
+        }
+
+        double[] toleranceValues() {
+            double[] values = new double[tolerances.length];
+            for (int t=0; t<tolerances.length; t++) {
+                values[t] = toleranceRange[tolerances[t]];
+            }
+            return values;
+        }
+
+        int[] maxIterValues() {
+            int[] values = new int[maxIters.length];
+            for (int m=0; m<maxIters.length; m++) {
+                values[m] = maxIterRange[maxIters[m]];
+            }
+            return values;
+        }
+    }
+
+
+    /*
+     * Wrapper class for a regularization path: the lambdas searched and, for
+     * each, the mean cross-validation accuracy and mean training iterations
+     */
+    public static class LambdaPath {
+        private final double[] lambdas;
+        private final double[] meanAccuracies;
+        private final double[] meanIterations;
+
+        public LambdaPath(double[] lambdas, double[] meanAccuracies, double[] meanIterations) {
+            this.lambdas = lambdas;
+            this.meanAccuracies = meanAccuracies;
+            this.meanIterations = meanIterations;
+        }
+
+        public double[] getLambdas() {
+            return lambdas.clone();
+        }
+
+        public double[] getMeanAccuracies() {
+            return meanAccuracies.clone();
+        }
+
+        public double[] getMeanIterations() {
+            return meanIterations.clone();
+        }
+    }
+
+
+    /*
+     * Walk the lambdas of the search space from strongest to weakest
+     * regularization on every validation fold, warm-starting each fit from the
+     * previous lambda's solution, and return the per-lambda validation scores
+     * (in increasing lambda order)
+     */
+    public LambdaPath getLambdaPath(double tolerance, int maxIter) {
+        List<Callable<FoldPath>> walks = new ArrayList<>();
+        for (DataUnits.DataBlock fold : getValidationFolds()) {
+            walks.add(() -> getValidationPath(fold, lambdaRange, new double[]{tolerance}, new int[]{maxIter}, true));
+        }
+        List<FoldPath> results;
+        openTuningExecutor();
+        try {
+            results = runTrainings(walks);
+        } finally {
+            closeTuningExecutor();
+        }
+
+        int numLambdas = lambdaRange.length;
+        double[] meanAccuracies = new double[numLambdas];
+        double[] meanIterations = new double[numLambdas];
+        for (int l=0; l<numLambdas; l++) {
+            for (FoldPath result : results) {
+                meanAccuracies[l] += result.accuracies[l][0];
+                meanIterations[l] += result.iterations[l];
+            }
+            meanAccuracies[l] /= DEFAULT_NUM_FOLDS;
+            meanIterations[l] /= DEFAULT_NUM_FOLDS;
+        }
+
+        return new LambdaPath(lambdaRange.clone(), meanAccuracies, meanIterations);
+    }
+
+
+    /*
+     * Split the master training set into the cross-validation folds, with every
+     * fold's matrices materialized up front so trainings can share them read-only
+     */
+    private DataUnits.DataBlock[] getValidationFolds() {
+        if (foldCache != null) {
+            FoldCache validationCache = foldCache.getValidationCache();
+            DataUnits.DataBlock[] folds = new DataUnits.DataBlock[DEFAULT_NUM_FOLDS];
+            for (int i=0; i<DEFAULT_NUM_FOLDS; i++) {
+                folds[i] = getCachedDataBlock(validationCache, i);
+            }
+            return folds;
+        }
+
         // Get master training data set (from stratified data split)
         DataUnits.DataSet masterTrainingSet = masterDataBlock.getTrainSet();
         double[][] masterTrainingData = masterTrainingSet.getData();
@@ -187,56 +970,251 @@ public class ModelTrainer {
 
         // Split traiing data further into training and testing subsets for validation
         StratifiedDataSplitter validationSplitter = new StratifiedDataSplitter(masterTrainingData, masterTrainingLabels, DEFAULT_NUM_FOLDS, _TEST_NUM_CLASSES);
-        
 
+        DataUnits.DataBlock[] folds = new DataUnits.DataBlock[DEFAULT_NUM_FOLDS];
+        for (int i=0; i<DEFAULT_NUM_FOLDS; i++) {
+            folds[i] = validationSplitter.getDataBlock(i);
+            folds[i].getTrainSet().getMatrix();
+            folds[i].getTestSet().getMatrix();
+        }
 
-        // Search (i.e. tuning)
-        double bestAccuracy = Integer.MIN_VALUE;
-        double bestLambda = 0;
-        double bestTolerance = 0;
-        int bestMaxIter = 0;
-        for (double lambda : DEFAULT_LAMBDA_RANGE) {
-            for (double tolerance : DEFAULT_TOLERANCE_RANGE) {
-                for (int maxIter : DEFAULT_MAX_ITER_RANGE) {
-                    // Running total Accuracy measure for measuring mean across Cross-Validaiton folds
-                    double runningTotalAccuracy = 0;
-                    for (int i=0; i<DEFAULT_NUM_FOLDS; i++) {
-                        DataUnits.DataBlock validationDataBlock = validationSplitter.getDataBlock(i);
-
-                        // Get validation training data set (from 2nd stratified data split)
-                        DataUnits.DataSet validationTrainingSet = validationDataBlock.getTrainSet();
-                        double[][] validationTrainingData = validationTrainingSet.getData();
-                        int[] validationTrainingLabels = validationTrainingSet.getLabels();
-        
-                        // Train a model using the validation training data and current options
-                        LogisticRegressionMultinomial.Options options = new LogisticRegressionMultinomial.Options(lambda, tolerance, maxIter);
-                        LogisticRegressionMultinomial model = new LogisticRegressionMultinomial(validationTrainingData, validationTrainingLabels, _TEST_NUM_CLASSES, options);
-                        
-                        // Get validation testing data set (from 2nd stratified data split)
-                        DataUnits.DataSet validationTestingSet = validationDataBlock.getTestSet();
-                        double[][] validationTestingData = validationTestingSet.getData();
-                        int[] validationTestingLabels = validationTestingSet.getLabels();
-
-                        // Measure performance metrics using holdout validation testing data set and add to the running total
-                        int[] prediction = model.predict(validationTestingData);
-                        MetricsMultinomial metrics = new MetricsMultinomial(validationTestingLabels, prediction, _TEST_NUM_CLASSES);
-                        double currentAccuracy = metrics.getAccuracy();
-                        runningTotalAccuracy += currentAccuracy;
+        return folds;
+    }
+
+
+    /*
+     * Slice a fold of a fold cache out of the processed dataset
+     */
+    private DataUnits.DataBlock getCachedDataBlock(FoldCache cache, int fold) {
+        int[] trainRows = cache.getTrainIndices(fold);
+        int[] testRows = cache.getTestIndices(fold);
+        DataUnits.DataSet trainSet = new DataUnits.DataSet(processedData.selectRows(trainRows), sliceLabels(trainRows));
+        DataUnits.DataSet testSet = new DataUnits.DataSet(processedData.selectRows(testRows), sliceLabels(testRows));
+        return new DataUnits.DataBlock(trainSet, testSet);
+    }
+
+
+    private int[] sliceLabels(int[] rows) {
+        int[] output = new int[rows.length];
+        for (int i=0; i<rows.length; i++) {
+            output[i] = masterLabels[rows[i]];
+        }
+        return output;
+    }
+
+
+    /*
+     * Validation scores of one fold's lambda walk: accuracies[lambda][combination]
+     * and the iterations of each lambda's fit, in increasing lambda order
+     */
+    private static class FoldPath {
+        private final double[][] accuracies;
+        private final int[] iterations;
+
+        FoldPath(double[][] accuracies, int[] iterations) {
+            this.accuracies = accuracies;
+            this.iterations = iterations;
+        }
+    }
+
+
+    /*
+     * Walk the given lambdas (in increasing order) from strongest to weakest
+     * regularization on a validation fold. Each fit starts from the previous lambda's solution (or
+     * from zero without warmStart) and trains with the smallest tolerance and
+     * the largest maxIter given; the testing set accuracy of every (tolerance,
+     * maxIter) combination is taken at the first iterate where a run with its
+     * options would have stopped, which is the model that run would have
+     * returned. Solvers that report no iterates must be given a single combination
+     */
+    private FoldPath getValidationPath(
+        DataUnits.DataBlock validationDataBlock, double[] lambdas, double[] tolerances, int[] maxIters, boolean warmStart
+    ) {
+        double minTolerance = Double.POSITIVE_INFINITY;
+        for (double tolerance : tolerances) {
+            minTolerance = Math.min(minTolerance, tolerance);
+        }
+        int maxMaxIter = 0;
+        for (int maxIter : maxIters) {
+            maxMaxIter = Math.max(maxMaxIter, maxIter);
+        }
+
+        // Get validation training data set (from 2nd stratified data split)
+        DataUnits.DataSet validationTrainingSet = validationDataBlock.getTrainSet();
+        DenseMatrix validationTrainingData = validationTrainingSet.getMatrix();
+        int[] validationTrainingLabels = validationTrainingSet.getLabels();
+
+        double[][] accuracies = new double[lambdas.length][];
+        int[] iterations = new int[lambdas.length];
+        LogisticRegressionMultinomial previous = null;
+        for (int l=lambdas.length - 1; l>=0; l--) {
+            LogisticRegressionMultinomial.Options options = buildOptions(lambdas[l], minTolerance, maxMaxIter);
+            PathRecorder recorder = new PathRecorder(
+                validationDataBlock.getTestSet(), validationTrainingData.getCols(), options, tolerances, maxIters);
+            LogisticRegressionMultinomial model = new LogisticRegressionMultinomial(
+                validationTrainingData, validationTrainingLabels, null, _TEST_NUM_CLASSES, options,
+                previous == null ? null : previous.getWeights(), previous == null ? null : previous.getBiases(), recorder);
+
+            // Combinations never stopped along the way stop where the run did
+            accuracies[l] = recorder.finish(model);
+            iterations[l] = model.getIterations();
+            previous = warmStart ? model : null;
+        }
+
+        return new FoldPath(accuracies, iterations);
+    }
+
+
+    /*
+     * Listener resolving each (tolerance, maxIter) combination at the first
+     * iterate where its run would stop: its tolerance is met or its budget is
+     * spent. Each iterate that resolves a combination is scored once
+     */
+    private static class PathRecorder implements IterationListener {
+        private final DataUnits.DataSet testSet;
+        private final int numFeatures;
+        private final LogisticRegressionMultinomial.Options options;
+        private final double[] tolerances;
+        private final int[] maxIters;
+        private final double[] accuracies;  // in (tolerance, maxIter) order
+        private final boolean[] resolved;
+
+        PathRecorder(
+            DataUnits.DataSet testSet, int numFeatures, LogisticRegressionMultinomial.Options options,
+            double[] tolerances, int[] maxIters
+        ) {
+            this.testSet = testSet;
+            this.numFeatures = numFeatures;
+            this.options = options;
+            this.tolerances = tolerances;
+            this.maxIters = maxIters;
+            this.accuracies = new double[tolerances.length * maxIters.length];
+            this.resolved = new boolean[accuracies.length];
+        }
+
+        public void onIteration(int iterations, double[] point, double convergenceMeasure) {
+            double accuracy = Double.NaN;
+            for (int t=0; t<tolerances.length; t++) {
+                for (int m=0; m<maxIters.length; m++) {
+                    int p = t * maxIters.length + m;
+                    if (resolved[p] || iterations > maxIters[m]) {
+                        continue;
                     }
-                    
-                    // Measure mean accuracy of cross-validation for current options and update best parameters if performance gain detected
-                    double meanCurrentAccuracy = runningTotalAccuracy / DEFAULT_NUM_FOLDS;
-                    if (meanCurrentAccuracy > bestAccuracy) {
-                        bestAccuracy = meanCurrentAccuracy;
-                        bestLambda = lambda;
-                        bestTolerance = tolerance;
-                        bestMaxIter = maxIter;
+                    if (convergenceMeasure < tolerances[t] || iterations == maxIters[m]) {
+                        if (Double.isNaN(accuracy)) {
+                            accuracy = getAccuracy(new LogisticRegressionMultinomial(point, _TEST_NUM_CLASSES, numFeatures, options));
+                        }
+                        accuracies[p] = accuracy;
+                        resolved[p] = true;
                     }
                 }
             }
         }
 
-        return new LogisticRegressionMultinomial.Options(bestLambda, bestTolerance, bestMaxIter);
+        double[] finish(LogisticRegressionMultinomial finalModel) {
+            double accuracy = Double.NaN;
+            for (int p=0; p<accuracies.length; p++) {
+                if (!resolved[p]) {
+                    if (Double.isNaN(accuracy)) {
+                        accuracy = getAccuracy(finalModel);
+                    }
+                    accuracies[p] = accuracy;
+                    resolved[p] = true;
+                }
+            }
+            return accuracies;
+        }
+
+        private double getAccuracy(LogisticRegressionMultinomial model) {
+            int[] labels = testSet.getLabels();
+            int[] prediction = new int[labels.length];
+            model.predict(testSet.getMatrix(), new DenseMatrix(prediction.length, _TEST_NUM_CLASSES), prediction);
+            return new MetricsMultinomial(labels, prediction, _TEST_NUM_CLASSES).getAccuracy();
+        }
+    }
+
+
+    /*
+     * Start the executor shared by the trainings of one search, when they run
+     * in parallel
+     */
+    private void openTuningExecutor() {
+        if (tuningParallelism == 1) {
+            return;
+        }
+        // Virtual threads are unbounded, so a semaphore caps how many train at once
+        tuningExecutor = tuningThreads == TuningThreads.VIRTUAL
+            ? Executors.newVirtualThreadPerTaskExecutor()
+            : Executors.newFixedThreadPool(tuningParallelism);
+        tuningPermits = new Semaphore(tuningParallelism);
+    }
+
+
+    private void closeTuningExecutor() {
+        if (tuningExecutor != null) {
+            tuningExecutor.shutdownNow();
+            tuningExecutor = null;
+            tuningPermits = null;
+        }
+    }
+
+
+    /*
+     * Run the trainings on the search's executor (or one after another on the
+     * calling thread without one) and return their results in submission order
+     */
+    private <T> List<T> runTrainings(List<Callable<T>> trainings) {
+        List<T> results = new ArrayList<>();
+        if (tuningExecutor == null) {
+            for (Callable<T> training : trainings) {
+                try {
+                    results.add(training.call());
+                } catch (Exception ex) {
+                    throw new IllegalStateException("Training failed during tuning", ex);
+                }
+            }
+            return results;
+        }
+
+        ExecutorService executor = tuningExecutor;
+        Semaphore permits = tuningPermits;
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> training : trainings) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return training.call();
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Training failed during tuning", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during tuning", ex);
+        }
+
+        return results;
+    }
+
+
+    /*
+     * Options for one grid point, using the trainer's solver and step strategy
+     */
+    private LogisticRegressionMultinomial.Options buildOptions(double lambda, double tolerance, int maxIter) {
+        return new LogisticRegressionMultinomial.Options.Builder()
+            .setSolver(solver)
+            .setStepStrategy(stepStrategy)
+            .setLambda(lambda)
+            .setTolerance(tolerance)
+            .setMaxIter(maxIter)
+            .build();
     }
 
 
@@ -0,0 +1,129 @@
+/*
+ * Damped Newton's method (Levenberg-Marquardt style). Each iteration solves
+ * (H + mu * I) * step = -gradient with a dense Cholesky factorization. The
+ * damping mu shrinks after every step that lowers the loss and grows whenever
+ * the factorization fails or the step does not lower the loss, so it falls back
+ * towards short gradient steps far from the optimum and is close to a pure
+ * Newton step near it. The first trial step of an iteration, which is usually
+ * accepted, is evaluated with its Hessian; retries after a rejection only need
+ * loss and gradient, and the Hessian is built once for the step they accept.
+ * Intended for small parameter counts, where the Hessian is cheap to form and
+ * factor
+ */
+class Newton implements Optimizer {
+    private static final double INITIAL_DAMPING = 1e-4;
+    private static final double MIN_DAMPING = 1e-10;
+    private static final double MAX_DAMPING = 1e10;
+    private static final double DAMPING_FACTOR = 10;
+    private final double gradientTolerance;
+    private final double relativeTolerance;
+    private final int maxIter;
+
+
+    public Newton(double gradientTolerance, double relativeTolerance, int maxIter) {
+        this.gradientTolerance = gradientTolerance;
+        this.relativeTolerance = relativeTolerance;
+        this.maxIter = maxIter;
+    }
+
+
+    public Result minimize(DifferentiableFunction function, double[] point, IterationListener listener) {
+        if (!(function instanceof TwiceDifferentiableFunction)) {
+            throw new IllegalArgumentException("Newton's method needs a TwiceDifferentiableFunction");
+        }
+        TwiceDifferentiableFunction objective = (TwiceDifferentiableFunction) function;
+        int dimension = objective.getDimension();
+        double[] gradient = new double[dimension];
+        DenseMatrix hessian = new DenseMatrix(dimension, dimension);
+        double[] trialPoint = new double[dimension];
+        double[] trialGradient = new double[dimension];
+        DenseMatrix trialHessian = new DenseMatrix(dimension, dimension);
+        DenseMatrix system = new DenseMatrix(dimension, dimension);
+        double[] step = new double[dimension];
+        double damping = INITIAL_DAMPING;
+
+        double value = objective.evaluate(point, gradient, hessian);
+        double measure = MatrixMath.maxAbs(gradient);
+        if (listener != null) {
+            listener.onIteration(0, point, measure);
+        }
+        if (measure < gradientTolerance) {
+            return new Result(value, 0, true);
+        }
+
+        for (int iter=0; iter<maxIter; iter++) {
+            // Increase damping until the step is computable and lowers the loss
+            double trialValue = Double.NaN;
+            int trials = 0;
+            while (damping <= MAX_DAMPING) {
+                if (solveDamped(hessian, gradient, damping, system, step)) {
+                    for (int i=0; i<dimension; i++) {
+                        trialPoint[i] = point[i] + step[i];
+                    }
+                    trialValue = trials++ == 0
+                        ? objective.evaluate(trialPoint, trialGradient, trialHessian)
+                        : objective.evaluate(trialPoint, trialGradient);
+                    if (trialValue <= value) {
+                        break;
+                    }
+                }
+                damping *= DAMPING_FACTOR;
+            }
+            if (damping > MAX_DAMPING) {
+                return new Result(value, iter + 1, false);
+            }
+            damping = Math.max(damping / DAMPING_FACTOR, MIN_DAMPING);
+
+            // Accept the step
+            double change = Math.abs(value - trialValue);
+            System.arraycopy(trialPoint, 0, point, 0, dimension);
+            System.arraycopy(trialGradient, 0, gradient, 0, dimension);
+            if (trials == 1) {
+                DenseMatrix swap = hessian;
+                hessian = trialHessian;
+                trialHessian = swap;
+            }
+            value = trialValue;
+
+            // Check for stopping conditions
+            measure = MatrixMath.maxAbs(gradient);
+            if (listener != null) {
+                listener.onIteration(iter + 1, point, measure);
+            }
+            if (measure < gradientTolerance
+                || change <= relativeTolerance * Math.max(1, Math.abs(value))) {
+                return new Result(value, iter + 1, true);
+            }
+            // A retried step was evaluated without its Hessian
+            if (trials > 1) {
+                objective.evaluate(point, gradient, hessian);
+            }
+        }
+
+        return new Result(value, maxIter, false);
+    }
+
+
+    /*
+     * Solve (H + damping * I) * step = -gradient; false if the damped matrix is
+     * not positive definite
+     */
+    private static boolean solveDamped(
+        DenseMatrix hessian, double[] gradient, double damping,
+        DenseMatrix system, double[] step
+    ) {
+        int dimension = gradient.length;
+        for (int i=0; i<dimension; i++) {
+            System.arraycopy(hessian.getData(), hessian.rowOffset(i), system.getData(), system.rowOffset(i), dimension);
+            system.set(i, i, system.get(i, i) + damping);
+            step[i] = -gradient[i];
+        }
+        if (!MatrixMath.choleskyInPlace(system)) {
+            return false;
+        }
+        MatrixMath.choleskySolve(system, step);
+
+        return true;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Unconstrained minimizer for a DifferentiableFunction. Implementations update
+ * the given point in place, starting from its current value
+ */
+interface Optimizer {
+
+    default Result minimize(DifferentiableFunction function, double[] point) {
+        return minimize(function, point, null);
+    }
+
+    /*
+     * Minimize, reporting iterates to the listener (if not null)
+     */
+    Result minimize(DifferentiableFunction function, double[] point, IterationListener listener);
+
+
+    /*
+     * Wrapper class for the outcome of a minimization
+     */
+    static class Result {
+        private final double value;
+        private final int iterations;
+        private final boolean converged;
+
+        public Result(double value, int iterations, boolean converged) {
+            this.value = value;
+            this.iterations = iterations;
+            this.converged = converged;
+        }
+
+        /*
+         * Function value at the last evaluated iterate
+         */
+        public double getValue() {
+            return value;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public boolean hasConverged() {
+            return converged;
+        }
+    }
+
+}
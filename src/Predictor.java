@@ -1,24 +1,87 @@
 // import smile.classification.LogisticRegression;
 
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class Predictor {
+    private static final int DEFAULT_FULL_RETRAIN_INTERVAL = 50;
+    private static final int REPLAY_BUFFER_SIZE = 32;
+    private static final int ONLINE_STEPS = 5;
+    private static final double ONLINE_LEARNING_RATE = 0.05;
+    private static final long REPLAY_SEED = 0;
+    private static final int TUNING_SAMPLES = 20;
+    private static final long TUNING_BUDGET_MILLIS = 30000;
+    private static final String TUNING_CACHE_FILE_NAME = "data/tuning_cache.tsv";
+    private static final int TUNING_CACHE_MAX_DRIFT_ROWS = 100;
     private DataStore dataStorage;
+    private final FoldCache foldCache = ModelTrainer.newFoldCache(); // splits kept across retrains
     private ModelTrainer.TrainedModel trainedModel;
+    private LogisticRegressionMultinomial currentModel; // trainedModel's model, or its online-updated copy
     private Scaler.NormalDistParams trainingDataScalingParams;
+    private LookupTableScorer scorer; // compiled from the current model and scaling
+    // Precomputed answer-space predictions, rebuilt in the background after model changes
+    private boolean answerTableEnabled;
+    private boolean answerTableProbabilities;
+    private volatile AnswerSpaceTable answerTable;
+    private long answerTableGeneration;
+    private ExecutorService answerTableBuilder;
+    private final UpdateMode updateMode;
+    private final int fullRetrainInterval;
+    // Online update state, reset by every full retrain
+    private Scaler.RunningStats scalingStats;
+    private double[][] replayData;
+    private int[] replayLabels;
+    private int replayCount;
+    private int replayNext;
+    private int updatesSinceRetrain;
 
     private static enum TrainingMode {
         DEFAULT,
         REUSE_OPTIONS
     }
 
+    /*
+     * How the model absorbs newly labelled samples (see update)
+     */
+    public static enum UpdateMode {
+        FULL_RETRAIN,
+        ONLINE
+    }
+
     public Predictor(DataStore dataStorage) {
+        this(dataStorage, UpdateMode.FULL_RETRAIN);
+    }
+
+    public Predictor(DataStore dataStorage, UpdateMode updateMode) {
+        this(dataStorage, updateMode, DEFAULT_FULL_RETRAIN_INTERVAL);
+    }
+
+    /*
+     * In ONLINE mode a full retrain runs once every fullRetrainInterval updates
+     */
+    public Predictor(DataStore dataStorage, UpdateMode updateMode, int fullRetrainInterval) {
+        if (fullRetrainInterval <= 0) {
+            throw new IllegalArgumentException("Retrain interval must be positive!");
+        }
         this.dataStorage = dataStorage;
+        this.updateMode = updateMode;
+        this.fullRetrainInterval = fullRetrainInterval;
         setModel(TrainingMode.DEFAULT);
     }
 
     private void setModel(TrainingMode mode) {
         double[][] trainingData = DataStore.toDoubleMatrix(dataStorage.getData());
         int[] trainingLabels = DataStore.toIntVector(dataStorage.getLabels());
-        ModelTrainer trainer = new ModelTrainer(trainingData, trainingLabels, ModelTrainer.TrainerOptions.SCALE);
+        ModelTrainer trainer = new ModelTrainer(trainingData, trainingLabels, ModelTrainer.TrainerOptions.SCALE, foldCache);
+        trainer.setTuningParallelism(Runtime.getRuntime().availableProcessors(), ModelTrainer.TuningThreads.PLATFORM);
+        // A fixed number of random samples keeps the tuning cost at startup and on full
+        // retrains independent of the search space; the time budget is only a safety net
+        trainer.setSearchStrategy(ModelTrainer.SearchStrategy.RANDOM);
+        trainer.setRandomSamples(TUNING_SAMPLES);
+        trainer.setTimeBudget(TUNING_BUDGET_MILLIS);
+        // Reuse tuned options across program starts until the data has drifted
+        trainer.setTuningCache(new TuningCache(TUNING_CACHE_FILE_NAME), TUNING_CACHE_MAX_DRIFT_ROWS);
         this.trainingDataScalingParams = trainer.getMasterDataScaledParams();
         switch(mode) {
             case DEFAULT:
@@ -29,33 +92,198 @@ public class Predictor {
                 if (trainedModel == null) {
                     throw new IllegalArgumentException("Cannot reuse options when trainedModel is null");
                 }
+                // Warm start from the current model: one new row barely moves the optimum
                 LogisticRegressionMultinomial.Options currentOptions = this.trainedModel.getOptions();
-                this.trainedModel = trainer.getTrainedModel(currentOptions);
+                this.trainedModel = trainer.getTrainedModel(currentOptions, this.currentModel);
                 break;
             default:
-                throw new IllegalArgumentException("Unknown Mode: " + mode);    
-        }   
+                throw new IllegalArgumentException("Unknown Mode: " + mode);
+        }
+
+        this.currentModel = trainedModel.getModel();
+        if (updateMode == UpdateMode.ONLINE) {
+            resetOnlineState(trainingData, trainingLabels, trainer.getMasterTrainingSize());
+        }
+        this.scorer = new LookupTableScorer(currentModel, trainingDataScalingParams);
+        refreshAnswerTable();
+    }
+
+
+    /*
+     * Seed the running scaler statistics from the fresh scaling parameters, and
+     * the replay buffer with a random sample of the stored rows
+     */
+    private void resetOnlineState(double[][] data, int[] labels, int trainingSize) {
+        this.scalingStats = new Scaler.RunningStats(trainingDataScalingParams, trainingSize);
+        this.replayData = new double[REPLAY_BUFFER_SIZE][];
+        this.replayLabels = new int[REPLAY_BUFFER_SIZE];
+        this.replayCount = 0;
+        this.replayNext = 0;
+        this.updatesSinceRetrain = 0;
+
+        Random random = new Random(REPLAY_SEED);
+        int seeded = Math.min(REPLAY_BUFFER_SIZE - 1, data.length);
+        for (int i=0; i<seeded; i++) {
+            int row = random.nextInt(data.length);
+            addToReplay(data[row], labels[row]);
+        }
+    }
+
+
+    private void addToReplay(double[] vector, int label) {
+        replayData[replayNext] = vector;
+        replayLabels[replayNext] = label;
+        replayNext = (replayNext + 1) % REPLAY_BUFFER_SIZE;
+        replayCount = Math.min(replayCount + 1, REPLAY_BUFFER_SIZE);
     }
 
 
     public int predict(double[] vector) {
-        return trainedModel.getModel().predict(vector);
+        return currentModel.predict(vector);
+    }
+
+    /*
+     * Predict from raw survey answers: a single read from the answer-space table
+     * when it is enabled and up to date, otherwise through the compiled lookup
+     * table instead of encoding, scaling and weighting the vector
+     */
+    public int predictRaw(double[] rawVector) {
+        AnswerSpaceTable table = answerTable;
+        if (table != null) {
+            return table.predict(rawVector);
+        }
+        return scorer.predict(rawVector);
+    }
+
+
+    /*
+     * Precompute predictions (and optionally top-class probabilities) for every
+     * combination of answers. The first table is built right away; after every
+     * retrain or online update it is rebuilt in the background, with predictRaw
+     * falling back to the lookup table until the new one is ready
+     */
+    public synchronized void enableAnswerTable(boolean withProbabilities) {
+        this.answerTableEnabled = true;
+        this.answerTableProbabilities = withProbabilities;
+        this.answerTableGeneration++;
+        this.answerTable = new AnswerSpaceTable(scorer, withProbabilities);
+    }
+
+
+    /*
+     * Return the current answer-space table, or null if disabled or being rebuilt
+     */
+    public AnswerSpaceTable getAnswerTable() {
+        return answerTable;
+    }
+
+
+    /*
+     * Drop the stale table and schedule a rebuild from the current scorer. Builds
+     * finishing out of order are discarded by their generation
+     */
+    private synchronized void refreshAnswerTable() {
+        if (!answerTableEnabled) {
+            return;
+        }
+        this.answerTable = null;
+        long generation = ++answerTableGeneration;
+        LookupTableScorer currentScorer = scorer;
+        boolean withProbabilities = answerTableProbabilities;
+        if (answerTableBuilder == null) {
+            answerTableBuilder = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "answer-table-builder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        answerTableBuilder.execute(() -> {
+            AnswerSpaceTable table = new AnswerSpaceTable(currentScorer, withProbabilities);
+            synchronized (this) {
+                if (generation == answerTableGeneration) {
+                    this.answerTable = table;
+                }
+            }
+        });
     }
 
     /*
      * Retrain a new model on current state of data, using previously saved
-     * hyperparemeters
+     * hyperparemeters and starting from the current model's parameters
      */
     public void retrainModel() {
-        setModel(TrainingMode.REUSE_OPTIONS);  
+        setModel(TrainingMode.REUSE_OPTIONS);
     }
 
+
+    /*
+     * Absorb a newly labelled (encoded, unscaled) sample that has already been
+     * added to the data store. FULL_RETRAIN retrains right away. ONLINE updates
+     * the scaling statistics incrementally, re-expresses the model in the new
+     * scaled coordinates, and takes a few gradient steps on the sample plus a
+     * small replay buffer; a full retrain only runs every fullRetrainInterval
+     * updates. Online updates apply to a copy of the last full retrain's model,
+     * so getModel keeps reporting that model with its measured metrics
+     */
+    public void update(double[] vectorEncoded, int label) {
+        if (updateMode == UpdateMode.FULL_RETRAIN || ++updatesSinceRetrain >= fullRetrainInterval) {
+            retrainModel();
+            return;
+        }
+
+        // Move scaling statistics, keeping the model's predictions unchanged
+        double[] oldMean = trainingDataScalingParams.getMeanVector();
+        double[] oldStdDev = trainingDataScalingParams.getStdDevVector();
+        scalingStats.add(vectorEncoded);
+        Scaler.NormalDistParams newParams = scalingStats.toNormalDistParams();
+        double[] newMean = newParams.getMeanVector();
+        double[] newStdDev = newParams.getStdDevVector();
+        double[] scale = new double[oldMean.length];
+        double[] shift = new double[oldMean.length];
+        for (int j=0; j<oldMean.length; j++) {
+            double oldSigma = oldStdDev[j] == 0 ? 1 : oldStdDev[j];
+            double newSigma = newStdDev[j] == 0 ? 1 : newStdDev[j];
+            scale[j] = oldSigma / newSigma;
+            shift[j] = (oldMean[j] - newMean[j]) / newSigma;
+        }
+        if (currentModel == trainedModel.getModel()) {
+            currentModel = currentModel.copy();
+        }
+        LogisticRegressionMultinomial model = currentModel;
+        model.rebaseFeatures(scale, shift);
+        this.trainingDataScalingParams = newParams;
+
+        // A few steps on the new sample and the replay buffer
+        addToReplay(vectorEncoded, label);
+        double[][] batch = new double[replayCount][];
+        int[] batchLabels = new int[replayCount];
+        for (int i=0; i<replayCount; i++) {
+            batch[i] = replayData[i];
+            batchLabels[i] = replayLabels[i];
+        }
+        DenseMatrix scaledBatch = Scaler.toNormalizedMatrix(DenseMatrix.fromArray(batch), newParams);
+        model.partialFit(scaledBatch, batchLabels, ONLINE_STEPS, ONLINE_LEARNING_RATE);
+        this.scorer = new LookupTableScorer(model, newParams);
+        refreshAnswerTable();
+    }
+
+    /*
+     * Return the last full retrain's model, with its options and measured metrics
+     */
     public ModelTrainer.TrainedModel getModel() {
         return trainedModel;
     }
 
+    /*
+     * Return the model predictions are made with: the last full retrain's, plus
+     * any online updates since (on inputs scaled by getTrainingDataScalingParams)
+     */
+    public LogisticRegressionMultinomial getCurrentModel() {
+        return currentModel;
+    }
+
     public Scaler.NormalDistParams getTrainingDataScalingParams() {
         return trainingDataScalingParams;
     }
-    
+
 }
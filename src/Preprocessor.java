@@ -17,12 +17,12 @@ public class Preprocessor {
         boolean weight
     ) {
         // Extract raw features data
-        double[][] trainDataRaw = rawDataBlock.getTrainSet().getData();
-        double[][] testDataRaw = rawDataBlock.getTestSet().getData();
+        DenseMatrix trainDataRaw = rawDataBlock.getTrainSet().getMatrix();
+        DenseMatrix testDataRaw = rawDataBlock.getTestSet().getMatrix();
 
         // Set output data to raw
-        double[][] outputTrainData = trainDataRaw;
-        double[][] outputTestData = testDataRaw;
+        DenseMatrix outputTrainData = trainDataRaw;
+        DenseMatrix outputTestData = testDataRaw;
 
         // Declare params that will be populated with normal distribution
         // parameters if scaling is performed
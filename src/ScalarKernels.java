@@ -0,0 +1,205 @@
+/*
+ * Plain Java implementation of the MatrixMath kernels; always available
+ */
+class ScalarKernels implements MatrixKernels {
+    // Cache blocking sizes for GEMM: a BLOCK_M x BLOCK_K panel of A and a
+    // BLOCK_K x BLOCK_N panel of B stay resident in L1/L2 while they are reused
+    static final int BLOCK_M = 64;
+    static final int BLOCK_K = 256;
+    static final int BLOCK_N = 512;
+
+
+    public String getName() {
+        return "scalar";
+    }
+
+
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i=0; i<length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+
+        return sum;
+    }
+
+
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int i=0; i<length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+
+    public void axpby(double alpha, double[] x, int xOffset, double beta, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        for (int i=0; i<length; i++) {
+            out[outOffset + i] = alpha * x[xOffset + i] + beta * y[yOffset + i];
+        }
+    }
+
+
+    public void add(double[] x, int xOffset, double[] y, int yOffset, double[] out, int outOffset, int length) {
+        for (int i=0; i<length; i++) {
+            out[outOffset + i] = x[xOffset + i] + y[yOffset + i];
+        }
+    }
+
+
+    public void scale(double alpha, double[] x, int xOffset, double[] out, int outOffset, int length) {
+        for (int i=0; i<length; i++) {
+            out[outOffset + i] = alpha * x[xOffset + i];
+        }
+    }
+
+
+    public void divide(double[] x, int offset, int length, double divisor) {
+        for (int i=offset; i<offset+length; i++) {
+            x[i] /= divisor;
+        }
+    }
+
+
+    public double max(double[] x, int offset, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i=offset; i<offset+length; i++) {
+            if (x[i] > max) {
+                max = x[i];
+            }
+        }
+
+        return max;
+    }
+
+
+    public double expShiftSum(double[] x, int offset, int length, double shift) {
+        double sum = 0;
+        for (int i=offset; i<offset+length; i++) {
+            double current = Math.exp(x[i] - shift);
+            x[i] = current;
+            sum += current;
+        }
+
+        return sum;
+    }
+
+
+    /*
+     * Cache-blocked GEMM. Transposed operands are handled by swapping strides
+     * instead of copying
+     */
+    public void gemm(
+        double alpha,
+        double[] a, int offsetA, int rowStrideA, int colStrideA,
+        double[] b, int offsetB, int rowStrideB, int colStrideB,
+        double[] c, int offsetC, int strideC,
+        int rowFrom, int rowTo, int n, int k
+    ) {
+        for (int p0=0; p0<k; p0+=BLOCK_K) {
+            int p1 = Math.min(p0 + BLOCK_K, k);
+            for (int i0=rowFrom; i0<rowTo; i0+=BLOCK_M) {
+                int i1 = Math.min(i0 + BLOCK_M, rowTo);
+                for (int j0=0; j0<n; j0+=BLOCK_N) {
+                    int j1 = Math.min(j0 + BLOCK_N, n);
+                    gemmPanel(
+                        alpha,
+                        a, offsetA, rowStrideA, colStrideA,
+                        b, offsetB, rowStrideB, colStrideB,
+                        c, offsetC, strideC,
+                        i0, i1, j0, j1, p0, p1
+                    );
+                }
+            }
+        }
+    }
+
+
+    /*
+     * Multiply one cache-resident panel using 4x4 register tiles, with scalar
+     * loops for the ragged edges
+     */
+    void gemmPanel(
+        double alpha,
+        double[] a, int offsetA, int rowStrideA, int colStrideA,
+        double[] b, int offsetB, int rowStrideB, int colStrideB,
+        double[] c, int offsetC, int strideC,
+        int i0, int i1, int j0, int j1, int p0, int p1
+    ) {
+        int i = i0;
+        for (; i+3<i1; i+=4) {
+            int a0 = offsetA + i * rowStrideA;
+            int a1 = a0 + rowStrideA;
+            int a2 = a1 + rowStrideA;
+            int a3 = a2 + rowStrideA;
+            int j = j0;
+            for (; j+3<j1; j+=4) {
+                int b0 = offsetB + j * colStrideB;
+                int b1 = b0 + colStrideB;
+                int b2 = b1 + colStrideB;
+                int b3 = b2 + colStrideB;
+                double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+                double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+                double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+                double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+                for (int p=p0; p<p1; p++) {
+                    int aStep = p * colStrideA;
+                    int bStep = p * rowStrideB;
+                    double y0 = b[b0 + bStep];
+                    double y1 = b[b1 + bStep];
+                    double y2 = b[b2 + bStep];
+                    double y3 = b[b3 + bStep];
+                    double x0 = a[a0 + aStep];
+                    double x1 = a[a1 + aStep];
+                    double x2 = a[a2 + aStep];
+                    double x3 = a[a3 + aStep];
+                    c00 += x0 * y0; c01 += x0 * y1; c02 += x0 * y2; c03 += x0 * y3;
+                    c10 += x1 * y0; c11 += x1 * y1; c12 += x1 * y2; c13 += x1 * y3;
+                    c20 += x2 * y0; c21 += x2 * y1; c22 += x2 * y2; c23 += x2 * y3;
+                    c30 += x3 * y0; c31 += x3 * y1; c32 += x3 * y2; c33 += x3 * y3;
+                }
+                int cIndex = offsetC + i * strideC + j;
+                c[cIndex] += alpha * c00; c[cIndex + 1] += alpha * c01;
+                c[cIndex + 2] += alpha * c02; c[cIndex + 3] += alpha * c03;
+                cIndex += strideC;
+                c[cIndex] += alpha * c10; c[cIndex + 1] += alpha * c11;
+                c[cIndex + 2] += alpha * c12; c[cIndex + 3] += alpha * c13;
+                cIndex += strideC;
+                c[cIndex] += alpha * c20; c[cIndex + 1] += alpha * c21;
+                c[cIndex + 2] += alpha * c22; c[cIndex + 3] += alpha * c23;
+                cIndex += strideC;
+                c[cIndex] += alpha * c30; c[cIndex + 1] += alpha * c31;
+                c[cIndex + 2] += alpha * c32; c[cIndex + 3] += alpha * c33;
+            }
+            // Ragged columns
+            for (; j<j1; j++) {
+                for (int r=i; r<i+4; r++) {
+                    gemmDot(alpha, a, offsetA + r * rowStrideA, colStrideA, b, offsetB + j * colStrideB, rowStrideB, c, offsetC + r * strideC + j, p0, p1);
+                }
+            }
+        }
+        // Ragged rows
+        for (; i<i1; i++) {
+            for (int j=j0; j<j1; j++) {
+                gemmDot(alpha, a, offsetA + i * rowStrideA, colStrideA, b, offsetB + j * colStrideB, rowStrideB, c, offsetC + i * strideC + j, p0, p1);
+            }
+        }
+    }
+
+
+    /*
+     * Single output element of a GEMM panel
+     */
+    void gemmDot(
+        double alpha,
+        double[] a, int aOffset, int aStep,
+        double[] b, int bOffset, int bStep,
+        double[] c, int cIndex,
+        int p0, int p1
+    ) {
+        double sum = 0;
+        for (int p=p0; p<p1; p++) {
+            sum += a[aOffset + p * aStep] * b[bOffset + p * bStep];
+        }
+        c[cIndex] += alpha * sum;
+    }
+
+}
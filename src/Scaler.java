@@ -22,6 +22,85 @@ public class Scaler {
 
     }
 
+    /*
+     * Running column means and standard deviations that absorb one row at a
+     * time (Welford's algorithm) or a whole other set of statistics, either
+     * empty or seeded from parameters computed over a batch
+     */
+    public static class RunningStats {
+        private long count;
+        private final double[] meanVector;
+        private final double[] sumSquaredDeviations;
+
+        public RunningStats(NormalDistParams params, long count) {
+            int n = params.getMeanVector().length;
+            this.count = count;
+            this.meanVector = params.getMeanVector().clone();
+            this.sumSquaredDeviations = new double[n];
+            for (int j=0; j<n; j++) {
+                double sigma = params.getStdDevVector()[j];
+                sumSquaredDeviations[j] = sigma * sigma * (count - 1);
+            }
+        }
+
+        /*
+         * Empty statistics over numFeatures columns
+         */
+        public RunningStats(int numFeatures) {
+            this.count = 0;
+            this.meanVector = new double[numFeatures];
+            this.sumSquaredDeviations = new double[numFeatures];
+        }
+
+        public void add(double[] row) {
+            if (row.length != meanVector.length) {
+                throw new IllegalArgumentException("Mismatching size!");
+            }
+            count++;
+            for (int j=0; j<row.length; j++) {
+                double deviation = row[j] - meanVector[j];
+                meanVector[j] += deviation / count;
+                sumSquaredDeviations[j] += deviation * (row[j] - meanVector[j]);
+            }
+        }
+
+        /*
+         * Absorb another set of statistics with Chan et al.'s pairwise update,
+         * as if its rows had been added here
+         */
+        public void merge(RunningStats other) {
+            if (other.meanVector.length != meanVector.length) {
+                throw new IllegalArgumentException("Mismatching size!");
+            }
+            if (other.count == 0) {
+                return;
+            }
+            long total = count + other.count;
+            for (int j=0; j<meanVector.length; j++) {
+                double delta = other.meanVector[j] - meanVector[j];
+                meanVector[j] += delta * other.count / total;
+                sumSquaredDeviations[j] += other.sumSquaredDeviations[j]
+                    + delta * delta * ((double) count * other.count / total);
+            }
+            count = total;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /*
+         * Current parameters, with the same bias adjustment as computeNormalDistParams
+         */
+        public NormalDistParams toNormalDistParams() {
+            double[] stdDevsVector = new double[meanVector.length];
+            for (int j=0; j<meanVector.length; j++) {
+                stdDevsVector[j] = Math.sqrt(sumSquaredDeviations[j] / (count - 1));
+            }
+            return new NormalDistParams(meanVector.clone(), stdDevsVector);
+        }
+    }
+
     /*
      * Compute normal distribution parameters of the columns of the input matrix
      */
@@ -68,4 +147,76 @@ public class Scaler {
         return outputMatrix;
     }
 
+    /*
+     * Compute normal distribution parameters of the columns of a contiguous matrix.
+     * Rows are walked in storage order, accumulating every column at once
+     */
+    public static Scaler.NormalDistParams computeNormalDistParams(DenseMatrix data) {
+        return computeNormalDistParams(data, null);
+    }
+
+    /*
+     * Weighted version: row i counts sampleWeights[i] times (frequency weights,
+     * so rows compressed into counts give the parameters of the full data)
+     */
+    public static Scaler.NormalDistParams computeNormalDistParams(DenseMatrix data, double[] sampleWeights) {
+        int m = data.getRows();
+        int n = data.getCols();
+        if (sampleWeights != null && sampleWeights.length != m) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        double[] values = data.getData();
+        double[] meansVector = new double[n];
+        double[] stdDevsVector = new double[n];
+        double totalWeight = 0;
+
+        for (int i=0; i<m; i++) {
+            int offset = data.rowOffset(i);
+            double weight = sampleWeights == null ? 1 : sampleWeights[i];
+            totalWeight += weight;
+            for (int j=0; j<n; j++) {
+                meansVector[j] += weight * values[offset + j];
+            }
+        }
+        for (int j=0; j<n; j++) {
+            meansVector[j] /= totalWeight;
+        }
+
+        for (int i=0; i<m; i++) {
+            int offset = data.rowOffset(i);
+            double weight = sampleWeights == null ? 1 : sampleWeights[i];
+            for (int j=0; j<n; j++) {
+                double deviation = meansVector[j] - values[offset + j];
+                stdDevsVector[j] += weight * deviation * deviation;
+            }
+        }
+        for (int j=0; j<n; j++) {
+            stdDevsVector[j] = Math.sqrt(stdDevsVector[j] / (totalWeight-1)); // bias adjustment
+        }
+
+        return new NormalDistParams(meansVector, stdDevsVector);
+    }
+
+    /*
+     * return contiguous matrix rescaled to standard normal
+     */
+    public static DenseMatrix toNormalizedMatrix(DenseMatrix data, Scaler.NormalDistParams params) {
+        int m = data.getRows();
+        int n = data.getCols();
+        double[] values = data.getData();
+        double[] mu = params.getMeanVector();
+        double[] sigma = params.getStdDevVector();
+        DenseMatrix outputMatrix = new DenseMatrix(m, n);
+        double[] outputValues = outputMatrix.getData();
+        for (int i=0; i<m; i++) {
+            int offset = data.rowOffset(i);
+            int outputOffset = outputMatrix.rowOffset(i);
+            for (int j=0; j<n; j++) {
+                outputValues[outputOffset + j] = (values[offset + j] - mu[j]) / (sigma[j] == 0 ? 1 : sigma[j]);
+            }
+        }
+
+        return outputMatrix;
+    }
+
 }
@@ -54,4 +54,55 @@ public class Softmax {
     }
 
 
+    /*
+     * Compute max-adjusted exponential of each item in a contiguous matrix
+     */
+    public static DenseMatrix getExpMatrix(DenseMatrix input) {
+        int height = input.getRows();
+        int width = input.getCols();
+        double[] data = input.getData();
+        DenseMatrix output = new DenseMatrix(height, width);
+        double[] outputData = output.getData();
+        MatrixKernels kernels = MatrixMath.kernels();
+
+        for (int i=0; i<height; i++) {
+            int outputOffset = output.rowOffset(i);
+            System.arraycopy(data, input.rowOffset(i), outputData, outputOffset, width);
+            double rowMax = kernels.max(outputData, outputOffset, width);
+            kernels.expShiftSum(outputData, outputOffset, width, rowMax); // For stabilization
+        }
+
+        return output;
+    }
+
+    /*
+     * Return contiguous matrix with softmax applied
+     */
+    public static DenseMatrix apply(DenseMatrix input) {
+        DenseMatrix output = input.copy();
+        applyInPlace(output);
+        return output;
+    }
+
+    /*
+     * Overwrite each row of a contiguous matrix with its softmax, without allocating
+     */
+    public static void applyInPlace(DenseMatrix matrix) {
+        int width = matrix.getCols();
+        double[] data = matrix.getData();
+        MatrixKernels kernels = MatrixMath.kernels();
+
+        for (int i=0; i<matrix.getRows(); i++) {
+            int offset = matrix.rowOffset(i);
+
+            // Max-adjusted exponentials (for stabilization) and their total
+            double rowMax = kernels.max(data, offset, width);
+            double rowSum = kernels.expShiftSum(data, offset, width, rowMax);
+
+            // Compute softmax values
+            kernels.divide(data, offset, width, rowSum);
+        }
+    }
+
+
 }
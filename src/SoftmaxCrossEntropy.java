@@ -0,0 +1,449 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * Fused softmax + cross-entropy objective for multinomial logistic regression.
+ *
+ * Model parameters are kept in one flat vector: the weights matrix (numClasses x
+ * numFeatures, row-major) followed by the biases (numClasses). A single pass over
+ * the training rows computes the logits, a stable softmax, the log-loss and the
+ * gradient, so no n x k intermediate matrix is ever materialized.
+ *
+ * Rows are split into fixed-size shards whose partial sums are combined with a
+ * fixed-order pairwise tree, so shards can run on a thread pool and results are
+ * bit-identical for any number of threads.
+ *
+ * Rows may carry sample weights (e.g. duplicate counts, see DataCompressor); the
+ * loss is then the weighted mean over the total weight
+ */
+class SoftmaxCrossEntropy implements TwiceDifferentiableFunction {
+    private final DenseMatrix data;
+    private final int[] labels;
+    private final int numClasses;
+    private final int numFeatures;
+    private final int numExamples;
+    private final double[] sampleWeights; // null for unit weights
+    private final double totalWeight;
+    private final double lambda;
+    private final ForkJoinPool pool;
+    private final Shard[] shards;
+    private static final int BLOCK_ROWS = 64;
+    private static final int SHARD_ROWS = 64 * BLOCK_ROWS;
+    private static final double LN_2 = Math.log(2);
+    private static final double RENORMALIZE_ABOVE = 0x1p512;
+
+
+    public SoftmaxCrossEntropy(DenseMatrix data, int[] labels, int numClasses, double lambda) {
+        this(data, labels, numClasses, lambda, null);
+    }
+
+
+    /*
+     * Evaluate shards on the given pool (inline when null)
+     */
+    public SoftmaxCrossEntropy(DenseMatrix data, int[] labels, int numClasses, double lambda, ForkJoinPool pool) {
+        this(data, labels, null, numClasses, lambda, pool);
+    }
+
+
+    /*
+     * Weighted rows: row i counts sampleWeights[i] times (unit weights when null)
+     */
+    public SoftmaxCrossEntropy(
+        DenseMatrix data, int[] labels, double[] sampleWeights,
+        int numClasses, double lambda, ForkJoinPool pool
+    ) {
+        if (labels.length < data.getRows() || (sampleWeights != null && sampleWeights.length < data.getRows())) {
+            throw new IllegalArgumentException("Sizes do not match!");
+        }
+        this.data = data;
+        this.labels = labels;
+        this.numClasses = numClasses;
+        this.numFeatures = data.getCols();
+        this.numExamples = data.getRows();
+        this.sampleWeights = sampleWeights;
+        this.totalWeight = sampleWeights == null ? numExamples : sumOf(sampleWeights, numExamples);
+        this.lambda = lambda;
+        this.pool = pool;
+        this.shards = new Shard[Math.max(1, (numExamples + SHARD_ROWS - 1) / SHARD_ROWS)];
+        for (int i=0; i<shards.length; i++) {
+            shards[i] = new Shard(i * SHARD_ROWS, Math.min((i + 1) * SHARD_ROWS, numExamples));
+        }
+    }
+
+
+    private static double sumOf(double[] values, int length) {
+        double sum = 0;
+        for (int i=0; i<length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+
+    /*
+     * A fixed range of rows with its own scratch buffers and partial sums
+     */
+    private class Shard {
+        private final int rowFrom;
+        private final int rowTo;
+        private final double[] block = new double[BLOCK_ROWS * numClasses]; // logits/deltas
+        private final double[] gradient = new double[getDimension()];
+        private double lossSum;
+        // Curvature scratch, allocated on the first Hessian request
+        private double[] probabilities; // BLOCK_ROWS x numClasses
+        private double[] pairWeights;   // BLOCK_ROWS x class pairs
+        private double[] outerBlock;    // BLOCK_ROWS x packed upper triangle of [x, 1] [x, 1]^T
+        private double[] curvature;     // packed Hessian accumulator, see accumulate
+
+        Shard(int rowFrom, int rowTo) {
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+        }
+
+        void allocateCurvature() {
+            if (curvature == null) {
+                curvature = new double[getCurvatureSize()];
+                probabilities = new double[BLOCK_ROWS * numClasses];
+                pairWeights = new double[BLOCK_ROWS * getPairCount()];
+                outerBlock = new double[BLOCK_ROWS * getTriangleSize()];
+            }
+        }
+
+        void add(Shard other, boolean withCurvature) {
+            lossSum += other.lossSum;
+            for (int i=0; i<gradient.length; i++) {
+                gradient[i] += other.gradient[i];
+            }
+            if (withCurvature) {
+                for (int i=0; i<curvature.length; i++) {
+                    curvature[i] += other.curvature[i];
+                }
+            }
+        }
+    }
+
+
+    /*
+     * Number of entries in the flat parameter vector: weights then biases
+     */
+    public static int getParameterCount(int numClasses, int numFeatures) {
+        return numClasses * numFeatures + numClasses;
+    }
+
+
+    /*
+     * Offset of the biases within the flat parameter vector
+     */
+    public static int getBiasOffset(int numClasses, int numFeatures) {
+        return numClasses * numFeatures;
+    }
+
+
+    public int getDimension() {
+        return getParameterCount(numClasses, numFeatures);
+    }
+
+
+    /*
+     * Return the regularized mean cross-entropy loss at the given parameters and
+     * write its gradient into the caller-supplied gradient vector:
+     *   loss = -1/n * sum_i log(p_i,y_i) + lambda/(2n) * ||W||^2
+     *   dW   = 1/n * (P - Y)^T X + lambda/n * W
+     *   db   = 1/n * column sums of (P - Y)
+     */
+    public double evaluate(double[] parameters, double[] gradient) {
+        Shard total = evaluateShards(parameters, false);
+        System.arraycopy(total.gradient, 0, gradient, 0, gradient.length);
+
+        return finish(parameters, total.lossSum, gradient, null, null);
+    }
+
+
+    /*
+     * Same as evaluate, also writing the full Hessian (parameter count square,
+     * in flat parameter order) in the same pass over the data. For every row
+     * the (class, class') block is (diag(p) - p p^T)[c][c'] * [x, 1] [x, 1]^T,
+     * plus lambda/n on the weight diagonal
+     */
+    public double evaluate(double[] parameters, double[] gradient, DenseMatrix hessian) {
+        int dimension = getDimension();
+        if (hessian.getRows() != dimension || hessian.getCols() != dimension) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        Shard total = evaluateShards(parameters, true);
+        System.arraycopy(total.gradient, 0, gradient, 0, gradient.length);
+
+        return finish(parameters, total.lossSum, gradient, total.curvature, hessian);
+    }
+
+
+    /*
+     * Accumulate every shard (in parallel when a pool is set), then fold them
+     * with a fixed-order pairwise tree into the first shard, which is returned
+     */
+    private Shard evaluateShards(double[] parameters, boolean withCurvature) {
+        MatrixMath.forEachRowBlock(pool, shards.length, 1, (shardFrom, shardTo) -> {
+            for (int i=shardFrom; i<shardTo; i++) {
+                accumulate(parameters, shards[i], withCurvature);
+            }
+        });
+
+        for (int width=1; width<shards.length; width*=2) {
+            for (int i=0; i + width<shards.length; i+=2 * width) {
+                shards[i].add(shards[i + width], withCurvature);
+            }
+        }
+
+        return shards[0];
+    }
+
+
+    /*
+     * Stream a shard's rows once, leaving their unscaled log-loss and (P - Y)
+     * outer products in the shard's partial sums.
+     * Rows are processed in small blocks: the block's logits come from one GEMM
+     * into a cache-resident scratch, are turned into deltas in place, and flow
+     * straight back into the gradient with a second GEMM. When a curvature
+     * accumulator is given, the unscaled Hessian is added to it as well, packed
+     * by symmetry: one row per class pair (c <= c'), holding the upper triangle
+     * of that pair's (numFeatures + 1) square block
+     */
+    private void accumulate(double[] parameters, Shard shard, boolean withCurvature) {
+        MatrixKernels kernels = MatrixMath.kernels();
+        int rowFrom = shard.rowFrom;
+        int rowTo = shard.rowTo;
+        double[] block = shard.block;
+        double[] gradient = shard.gradient;
+        double[] curvature = null;
+        Arrays.fill(gradient, 0);
+        if (withCurvature) {
+            shard.allocateCurvature();
+            curvature = shard.curvature;
+            Arrays.fill(curvature, 0);
+        }
+        double[] values = data.getData();
+        int stride = data.getStride();
+        int biasOffset = getBiasOffset(numClasses, numFeatures);
+        double lossSum = 0;
+        double rowSumProduct = 1;
+        long rowSumExponent = 0;
+
+        for (int i0=rowFrom; i0<rowTo; i0+=BLOCK_ROWS) {
+            int blockRows = Math.min(BLOCK_ROWS, rowTo - i0);
+            int dataOffset = data.rowOffset(i0);
+
+            // Logits for the block: X_block * W^T
+            Arrays.fill(block, 0, blockRows * numClasses, 0);
+            kernels.gemm(
+                1,
+                values, dataOffset, stride, 1,
+                parameters, 0, 1, numFeatures,
+                block, 0, numClasses,
+                0, blockRows, numClasses, numFeatures
+            );
+
+            for (int r=0; r<blockRows; r++) {
+                int offset = r * numClasses;
+                int label = labels[i0 + r];
+                double weight = sampleWeights == null ? 1 : sampleWeights[i0 + r];
+
+                // Biased logits and their max
+                double rowMax = Double.NEGATIVE_INFINITY;
+                for (int c=0; c<numClasses; c++) {
+                    double logit = block[offset + c] + parameters[biasOffset + c];
+                    block[offset + c] = logit;
+                    if (logit > rowMax) {
+                        rowMax = logit;
+                    }
+                }
+
+                // Max-adjusted exponentials (for stabilization) and their total
+                double labelLogitShifted = block[offset + label] - rowMax;
+                double rowSum = 0;
+                for (int c=0; c<numClasses; c++) {
+                    double current = Math.exp(block[offset + c] - rowMax);
+                    block[offset + c] = current;
+                    rowSum += current;
+                }
+
+                // -log(softmax) at the true label is log(rowSum) - labelLogitShifted. The
+                // log terms are summed as a log of a product (rowSum >= 1, so the product
+                // only grows and is renormalized by powers of two) to keep Math.log out
+                // of the per-row loop. Weighted rows take the log directly
+                if (sampleWeights == null) {
+                    lossSum -= labelLogitShifted;
+                    rowSumProduct *= rowSum;
+                    if (rowSumProduct > RENORMALIZE_ABOVE) {
+                        int exponent = Math.getExponent(rowSumProduct);
+                        rowSumExponent += exponent;
+                        rowSumProduct = Math.scalb(rowSumProduct, -exponent);
+                    }
+                } else {
+                    lossSum += weight * (Math.log(rowSum) - labelLogitShifted);
+                }
+
+                // Ŷ − oneHot(Y) for this row (times its weight), plus its bias gradient
+                for (int c=0; c<numClasses; c++) {
+                    double probability = block[offset + c] / rowSum;
+                    if (curvature != null) {
+                        shard.probabilities[offset + c] = probability;
+                    }
+                    double delta = weight * (probability - (c == label ? 1 : 0));
+                    block[offset + c] = delta;
+                    gradient[biasOffset + c] += delta;
+                }
+            }
+
+            if (curvature != null) {
+                accumulateCurvature(kernels, values, i0, blockRows, shard);
+            }
+
+            // Weights gradient for the block: delta_block^T * X_block
+            kernels.gemm(
+                1,
+                block, 0, 1, numClasses,
+                values, dataOffset, stride, 1,
+                gradient, 0, numFeatures,
+                0, numClasses, numFeatures, blockRows
+            );
+        }
+
+        shard.lossSum = lossSum + Math.log(rowSumProduct) + rowSumExponent * LN_2;
+    }
+
+
+    /*
+     * Add a block's curvature to the packed accumulator. Every row contributes
+     * w_cc' * [x, 1] [x, 1]^T to the (c, c') block, with w_cc' = p_c * ([c == c'] - p_c'),
+     * so the whole block is one GEMM: pair weights^T * packed outer products
+     */
+    private void accumulateCurvature(
+        MatrixKernels kernels,
+        double[] values, int rowFrom, int blockRows,
+        Shard shard
+    ) {
+        int dataOffset = data.rowOffset(rowFrom);
+        int stride = data.getStride();
+        double[] probabilities = shard.probabilities;
+        double[] pairWeights = shard.pairWeights;
+        double[] outerBlock = shard.outerBlock;
+        int pairCount = getPairCount();
+        int triangleSize = getTriangleSize();
+        for (int r=0; r<blockRows; r++) {
+            // Upper triangle of the augmented row's outer product
+            int rowOffset = dataOffset + r * stride;
+            int index = r * triangleSize;
+            for (int j=0; j<=numFeatures; j++) {
+                double xj = j < numFeatures ? values[rowOffset + j] : 1;
+                for (int j2=j; j2<numFeatures; j2++) {
+                    outerBlock[index++] = xj * values[rowOffset + j2];
+                }
+                outerBlock[index++] = xj;
+            }
+
+            // Softmax curvature weight for each class pair, times the row's weight
+            double weight = sampleWeights == null ? 1 : sampleWeights[rowFrom + r];
+            int pair = r * pairCount;
+            for (int c=0; c<numClasses; c++) {
+                double probability = probabilities[r * numClasses + c];
+                pairWeights[pair++] = weight * probability * (1 - probability);
+                for (int c2=c + 1; c2<numClasses; c2++) {
+                    pairWeights[pair++] = weight * -probability * probabilities[r * numClasses + c2];
+                }
+            }
+        }
+
+        kernels.gemm(
+            1,
+            pairWeights, 0, 1, pairCount,
+            outerBlock, 0, triangleSize, 1,
+            shard.curvature, 0, triangleSize,
+            0, pairCount, triangleSize, blockRows
+        );
+    }
+
+
+    /*
+     * Turn accumulated sums into the mean regularized loss and gradient (and,
+     * when a Hessian output is given, unpack the curvature into it)
+     */
+    private double finish(double[] parameters, double lossSum, double[] gradient, double[] curvature, DenseMatrix hessian) {
+        int weightCount = numClasses * numFeatures;
+        double scalar = 1.0 / totalWeight;
+        double regularization = lambda / totalWeight;
+        double weightsNormSquared = 0;
+
+        for (int i=0; i<weightCount; i++) {
+            gradient[i] = scalar * gradient[i] + regularization * parameters[i];
+            weightsNormSquared += parameters[i] * parameters[i];
+        }
+        for (int i=weightCount; i<weightCount + numClasses; i++) {
+            gradient[i] *= scalar;
+        }
+
+        if (hessian != null) {
+            int dimension = getDimension();
+            int triangleSize = getTriangleSize();
+            for (int i=0; i<dimension; i++) {
+                int classI = classOf(i);
+                int featureI = featureOf(i);
+                for (int j=0; j<dimension; j++) {
+                    int classJ = classOf(j);
+                    int featureJ = featureOf(j);
+                    int pair = packedIndex(Math.min(classI, classJ), Math.max(classI, classJ), numClasses);
+                    int entry = packedIndex(Math.min(featureI, featureJ), Math.max(featureI, featureJ), numFeatures + 1);
+                    hessian.set(i, j, scalar * curvature[pair * triangleSize + entry]);
+                }
+                if (i < weightCount) {
+                    hessian.set(i, i, hessian.get(i, i) + regularization);
+                }
+            }
+        }
+
+        return lossSum * scalar + 0.5 * regularization * weightsNormSquared;
+    }
+
+
+    /*
+     * Class that a flat parameter index belongs to
+     */
+    private int classOf(int index) {
+        int weightCount = numClasses * numFeatures;
+        return index < weightCount ? index / numFeatures : index - weightCount;
+    }
+
+
+    /*
+     * Feature a flat parameter index belongs to (numFeatures for a bias)
+     */
+    private int featureOf(int index) {
+        int weightCount = numClasses * numFeatures;
+        return index < weightCount ? index % numFeatures : numFeatures;
+    }
+
+
+    /*
+     * Position of (a, b), a <= b, in the row-major packed upper triangle of a
+     * size x size matrix
+     */
+    private static int packedIndex(int a, int b, int size) {
+        return a * size - a * (a - 1) / 2 + (b - a);
+    }
+
+    private int getPairCount() {
+        return numClasses * (numClasses + 1) / 2;
+    }
+
+    private int getTriangleSize() {
+        return (numFeatures + 1) * (numFeatures + 2) / 2;
+    }
+
+    /*
+     * Length of a packed curvature accumulator
+     */
+    int getCurvatureSize() {
+        return getPairCount() * getTriangleSize();
+    }
+
+}
@@ -51,6 +51,14 @@ public class StratifiedDataSplitter {
     }
 
 
+    /*
+     * Train/test indices of every fold, as split by the constructor
+     */
+    public DataUnits.DataIndicesSet[] getDataIndicesSets() {
+        return dataIndicesSets;
+    }
+
+
     private HashMap<Integer, List<Integer>> getAssortedIndices() {
         HashMap<Integer, List<Integer>> classIndices = new HashMap<>();
         int dataSize = masterLabels.length;
@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Small on-disk cache of tuning results. Each entry is keyed by a SHA-256
+ * fingerprint of the tuning setup (preprocessing, solver, search space, ...)
+ * followed by the dataset's rows and labels, and holds the chosen lambda,
+ * tolerance and maxIter with their mean cross-validation accuracy. As rows are
+ * hashed in order, the fingerprint of an older, shorter version of a dataset
+ * that has only been appended to can be checked in the same pass, so a lookup
+ * can accept results tuned up to a given number of rows ago
+ */
+class TuningCache {
+    private static final int MAX_ENTRIES = 16;
+    private static final String SEPARATOR = "\t";
+    private final Path path;
+
+
+    /*
+     * Wrapper class for one cached tuning result
+     */
+    static class Entry {
+        private final String fingerprint;
+        private final int rows;
+        private final double lambda;
+        private final double tolerance;
+        private final int maxIter;
+        private final double accuracy;
+
+        public Entry(String fingerprint, int rows, double lambda, double tolerance, int maxIter, double accuracy) {
+            this.fingerprint = fingerprint;
+            this.rows = rows;
+            this.lambda = lambda;
+            this.tolerance = tolerance;
+            this.maxIter = maxIter;
+            this.accuracy = accuracy;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public double getLambda() {
+            return lambda;
+        }
+
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public int getMaxIter() {
+            return maxIter;
+        }
+
+        public double getAccuracy() {
+            return accuracy;
+        }
+    }
+
+
+    public TuningCache(String fileName) {
+        this.path = Paths.get(fileName);
+    }
+
+
+    /*
+     * Return the entry tuned on this setup and dataset, or on a version of the
+     * dataset missing at most maxDriftRows of its last rows (the most recent
+     * such version wins), or null if there is none
+     */
+    public Entry lookup(String setup, double[][] data, int[] labels, int maxDriftRows) throws IOException {
+        List<Entry> entries = readEntries();
+        int n = data.length;
+        Entry best = null;
+        MessageDigest digest = newDigest(setup);
+        ByteBuffer buffer = null;
+        for (int i=0; i<=n; i++) {
+            // Check entries tuned on the first i rows before hashing row i
+            for (Entry entry : entries) {
+                if (entry.rows == i && n - i <= maxDriftRows && (best == null || i > best.rows)
+                    && entry.fingerprint.equals(toHex(clone(digest).digest()))) {
+                    best = entry;
+                }
+            }
+            if (i < n) {
+                if (buffer == null) {
+                    buffer = ByteBuffer.allocate(data[i].length * Double.BYTES + Integer.BYTES);
+                }
+                hashRow(digest, buffer, data[i], labels[i]);
+            }
+        }
+
+        return best;
+    }
+
+
+    /*
+     * Record the tuning result of this setup and dataset, replacing any entry
+     * with the same fingerprint and dropping the oldest beyond MAX_ENTRIES
+     */
+    public void store(String setup, double[][] data, int[] labels, double lambda, double tolerance, int maxIter, double accuracy)
+        throws IOException {
+        MessageDigest digest = newDigest(setup);
+        if (data.length > 0) {
+            ByteBuffer buffer = ByteBuffer.allocate(data[0].length * Double.BYTES + Integer.BYTES);
+            for (int i=0; i<data.length; i++) {
+                hashRow(digest, buffer, data[i], labels[i]);
+            }
+        }
+        String fingerprint = toHex(digest.digest());
+
+        List<Entry> entries = readEntries();
+        entries.removeIf(entry -> entry.fingerprint.equals(fingerprint));
+        entries.add(new Entry(fingerprint, data.length, lambda, tolerance, maxIter, accuracy));
+        while (entries.size() > MAX_ENTRIES) {
+            entries.remove(0);
+        }
+
+        StringBuilder contents = new StringBuilder();
+        for (Entry entry : entries) {
+            contents.append(entry.fingerprint).append(SEPARATOR)
+                .append(entry.rows).append(SEPARATOR)
+                .append(entry.lambda).append(SEPARATOR)
+                .append(entry.tolerance).append(SEPARATOR)
+                .append(entry.maxIter).append(SEPARATOR)
+                .append(entry.accuracy).append(System.lineSeparator());
+        }
+
+        // Write a temporary file and move it into place, so readers never see a partial cache
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temporary, contents);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+
+    /*
+     * Read the entries on disk, oldest first; malformed lines are skipped
+     */
+    private List<Entry> readEntries() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return entries;
+        }
+        for (String line : Files.readAllLines(path)) {
+            String[] fields = line.split(SEPARATOR);
+            if (fields.length != 6) {
+                continue;
+            }
+            try {
+                entries.add(new Entry(fields[0], Integer.parseInt(fields[1]), Double.parseDouble(fields[2]),
+                    Double.parseDouble(fields[3]), Integer.parseInt(fields[4]), Double.parseDouble(fields[5])));
+            } catch (NumberFormatException ex) {
+                // Skip it; the next store rewrites the file
+            }
+        }
+
+        return entries;
+    }
+
+
+    private static MessageDigest newDigest(String setup) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(setup.getBytes(StandardCharsets.UTF_8));
+            return digest;
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+
+    private static MessageDigest clone(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+
+    private static void hashRow(MessageDigest digest, ByteBuffer buffer, double[] row, int label) {
+        if (buffer.capacity() != row.length * Double.BYTES + Integer.BYTES) {
+            throw new IllegalArgumentException("Mismatching size!");
+        }
+        buffer.clear();
+        for (double value : row) {
+            buffer.putDouble(value);
+        }
+        buffer.putInt(label);
+        digest.update(buffer.array());
+    }
+
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+}
@@ -0,0 +1,13 @@
+/*
+ * Objective function that can also report its Hessian, for second-order
+ * optimizers
+ */
+interface TwiceDifferentiableFunction extends DifferentiableFunction {
+
+    /*
+     * Return the function value at the given point and write its gradient and
+     * its (dimension x dimension) Hessian into the caller-supplied outputs
+     */
+    double evaluate(double[] point, double[] gradient, DenseMatrix hessian);
+
+}
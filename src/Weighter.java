@@ -3,6 +3,16 @@
  */
 public class Weighter {
 
+    /*
+     * return the weighted value of a single (scaled) feature
+     */
+    public static double weigh(int featureNumber, double value) {
+        if ((featureNumber >= 3 && featureNumber <= 11)) {
+            value *= Math.pow(3, value);
+        }
+        return value;
+    }
+
     /*
      * return weighted matrix using domain-specific feature weighting
      */
@@ -12,15 +22,31 @@ public class Weighter {
         double[][] outputMatrix = new double[m][n];
         for (int i=0; i<m; i++) {
             for (int j=0; j<n; j++) {
-                outputMatrix[i][j] = data[i][j];
-                if ((j >= 3 && j <= 11)) {
-                    outputMatrix[i][j] *= Math.pow(3, outputMatrix[i][j]);
-                }
+                outputMatrix[i][j] = weigh(j, data[i][j]);
             }
         }
         
         return outputMatrix;
     }
 
-    
+    /*
+     * return weighted contiguous matrix using domain-specific feature weighting
+     */
+    public static DenseMatrix toWeightedMatrix(DenseMatrix data) {
+        int m = data.getRows();
+        int n = data.getCols();
+        double[] values = data.getData();
+        DenseMatrix outputMatrix = new DenseMatrix(m, n);
+        double[] outputValues = outputMatrix.getData();
+        for (int i=0; i<m; i++) {
+            int offset = data.rowOffset(i);
+            int outputOffset = outputMatrix.rowOffset(i);
+            for (int j=0; j<n; j++) {
+                outputValues[outputOffset + j] = weigh(j, values[offset + j]);
+            }
+        }
+
+        return outputMatrix;
+    }
+
 }
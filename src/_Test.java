@@ -1,4 +1,10 @@
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
 
 public class _Test {
 
@@ -6,19 +12,7 @@ public class _Test {
         System.out.println("\n");
         System.out.println("Started Test1");
 
-        String fileName = "data/data_1000_realistic.csv";
-        DataStore testDataStore = new DataStore(fileName);
-        try {
-            testDataStore.loadData();
-        } catch (CorruptDataException ex) {
-            System.out.println("Error loading Data: corrupt data.");
-            System.out.println(ex.getMessage());
-            System.exit(1);
-        } catch (IOException ex) {
-            System.out.println("Error loading Data: IO Exception occured.");
-            System.out.println(ex.getMessage());
-            System.exit(1);
-        }
+        DataStore testDataStore = loadTestDataStore();
 
         double[][] trainingData = DataStore.toDoubleMatrix(testDataStore.getData());
         int[] trainingLabels = DataStore.toIntVector(testDataStore.getLabels());
@@ -55,6 +49,547 @@ public class _Test {
         System.out.println("\n");
     }
 
+    public static void test2() {
+        System.out.println("\n");
+        System.out.println("Started Test2");
+
+        DataStore testDataStore = loadTestDataStore();
+
+        DataUnits.DataBlock dataBlock = new StratifiedDataSplitter(
+            DataStore.toDoubleMatrix(testDataStore.getData()),
+            DataStore.toIntVector(testDataStore.getLabels()), 5, 4).getDataBlock(0);
+        DataUnits.DataBlock scaledBlock = Preprocessor.getProcessed(dataBlock, true, false).getProcessedDataBlock();
+        DataUnits.DataSet trainSet = scaledBlock.getTrainSet();
+        DataUnits.DataSet testSet = scaledBlock.getTestSet();
+
+        // Full-batch gradient descent vs a few epochs of mini-batch SGD vs L-BFGS vs Newton
+        LogisticRegressionMultinomial.Options batchOptions = new LogisticRegressionMultinomial.Options(1e-4, 1e-5, 900);
+        LogisticRegressionMultinomial.Options sgdOptions = new LogisticRegressionMultinomial.Options.Builder()
+            .setSolver(LogisticRegressionMultinomial.Solver.MINI_BATCH_SGD)
+            .setLearningRate(0.2)
+            .setBatchSize(32)
+            .setEpochs(10)
+            .setLearningRateSchedule(LogisticRegressionMultinomial.LearningRateSchedule.INVERSE_SQRT)
+            .build();
+        LogisticRegressionMultinomial.Options lbfgsOptions = new LogisticRegressionMultinomial.Options.Builder()
+            .setSolver(LogisticRegressionMultinomial.Solver.LBFGS)
+            .setLambda(1e-4)
+            .setTolerance(1e-5)
+            .build();
+        LogisticRegressionMultinomial.Options newtonOptions = new LogisticRegressionMultinomial.Options.Builder(lbfgsOptions)
+            .setSolver(LogisticRegressionMultinomial.Solver.NEWTON)
+            .build();
+        LogisticRegressionMultinomial.Options adamOptions = new LogisticRegressionMultinomial.Options.Builder(batchOptions)
+            .setStepStrategy(LogisticRegressionMultinomial.StepStrategy.ADAM)
+            .setLearningRate(0.1)
+            .build();
+        LogisticRegressionMultinomial.Options backtrackingOptions = new LogisticRegressionMultinomial.Options.Builder(batchOptions)
+            .setStepStrategy(LogisticRegressionMultinomial.StepStrategy.BACKTRACKING)
+            .build();
+        LogisticRegressionMultinomial.Options[] allOptions = {
+            batchOptions, adamOptions, backtrackingOptions, sgdOptions, lbfgsOptions, newtonOptions
+        };
+        for (LogisticRegressionMultinomial.Options options : allOptions) {
+            long start = System.nanoTime();
+            LogisticRegressionMultinomial model = new LogisticRegressionMultinomial(
+                trainSet.getMatrix(), trainSet.getLabels(), 4, options);
+            long elapsed = (System.nanoTime() - start) / 1000000;
+            int[] prediction = model.predict(testSet.getMatrix());
+            double accuracy = new MetricsMultinomial(testSet.getLabels(), prediction, 4).getAccuracy();
+            System.out.println(options.getSolver() + " (" + options.getStepStrategy() + "): accuracy " + accuracy
+                + ", training loss " + model.getTrainingLoss() + ", " + model.getIterations() + " iterations, "
+                + elapsed + " ms");
+        }
+    }
+
+    public static void test3() {
+        System.out.println("\n");
+        System.out.println("Started Test3");
+
+        DataStore testDataStore = loadTestDataStore();
+
+        // Full data vs unique rows weighted by their counts
+        DenseMatrix data = DenseMatrix.fromArray(DataStore.toDoubleMatrix(testDataStore.getData()));
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+        DataCompressor.CompressedData compressed = DataCompressor.compress(data, labels);
+        System.out.println("Rows: " + compressed.getOriginalRows() + ", unique patterns: " + compressed.getLabels().length);
+
+        Scaler.NormalDistParams params = Scaler.computeNormalDistParams(data);
+        Scaler.NormalDistParams weightedParams = Scaler.computeNormalDistParams(compressed.getMatrix(), compressed.getWeights());
+        System.out.println("Max abs diff (scaling means): " + _TestMatrixMath.maxAbsDiff(
+            new double[][]{params.getMeanVector()}, new double[][]{weightedParams.getMeanVector()}));
+        System.out.println("Max abs diff (scaling std devs): " + _TestMatrixMath.maxAbsDiff(
+            new double[][]{params.getStdDevVector()}, new double[][]{weightedParams.getStdDevVector()}));
+
+        LogisticRegressionMultinomial.Options options = new LogisticRegressionMultinomial.Options.Builder()
+            .setSolver(LogisticRegressionMultinomial.Solver.LBFGS)
+            .setTolerance(1e-8)
+            .build();
+        DenseMatrix scaled = Scaler.toNormalizedMatrix(data, params);
+        DenseMatrix scaledUnique = Scaler.toNormalizedMatrix(compressed.getMatrix(), params);
+        LogisticRegressionMultinomial model = new LogisticRegressionMultinomial(scaled, labels, 4, options);
+        LogisticRegressionMultinomial weightedModel = new LogisticRegressionMultinomial(
+            scaledUnique, compressed.getLabels(), compressed.getWeights(), 4, options);
+        System.out.println("Abs diff (training loss): "
+            + Math.abs(model.getTrainingLoss() - weightedModel.getTrainingLoss()));
+        System.out.println("Max abs diff (weights): "
+            + _TestMatrixMath.maxAbsDiff(model.getWeights(), weightedModel.getWeights()));
+
+        double accuracy = new MetricsMultinomial(labels, model.predict(scaled), 4).getAccuracy();
+        double weightedAccuracy = new MetricsMultinomial(
+            compressed.getLabels(), model.predict(scaledUnique), compressed.getWeights(), 4).getAccuracy();
+        System.out.println("Training accuracy (full, weighted): " + accuracy + ", " + weightedAccuracy);
+    }
+
+    public static void test4() {
+        System.out.println("\n");
+        System.out.println("Started Test4");
+
+        DataStore testDataStore = loadTestDataStore();
+
+        DenseMatrix data = DenseMatrix.fromArray(DataStore.toDoubleMatrix(testDataStore.getData()));
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+        Scaler.NormalDistParams params = Scaler.computeNormalDistParams(data);
+        LogisticRegressionMultinomial.Options options = new LogisticRegressionMultinomial.Options.Builder()
+            .setSolver(LogisticRegressionMultinomial.Solver.LBFGS)
+            .build();
+        LogisticRegressionMultinomial model = new LogisticRegressionMultinomial(
+            Scaler.toNormalizedMatrix(data, params), labels, 4, options);
+        LookupTableScorer scorer = new LookupTableScorer(model, params);
+
+        // Compiled table vs encode -> scale -> weight -> model, on random raw answers
+        Random random = new Random(37);
+        int samples = 10000;
+        int mismatches = 0;
+        for (int i=0; i<samples; i++) {
+            double[] raw = new double[data.getCols()];
+            for (int j=0; j<raw.length; j++) {
+                raw[j] = 1 + random.nextInt(DataStore.getFeatureRange(j));
+            }
+            double[][] encoded = new double[][]{DataStore.encodeFeaturesVector(raw)};
+            double[] weighted = Weighter.toWeightedMatrix(Scaler.toNormalizedMatrix(encoded, params))[0];
+            if (model.predict(weighted) != scorer.predict(raw)) {
+                mismatches++;
+            }
+        }
+        System.out.println("Lookup table vs pipeline mismatches: " + mismatches + " of " + samples);
+
+        // Exhaustive answer-space table vs the lookup table
+        AnswerSpaceTable answerTable = new AnswerSpaceTable(scorer, true);
+        int tableMismatches = 0;
+        double[] scores = new double[4];
+        double maxProbabilityDiff = 0;
+        for (int i=0; i<samples; i++) {
+            double[] raw = new double[data.getCols()];
+            for (int j=0; j<raw.length; j++) {
+                raw[j] = 1 + random.nextInt(DataStore.getFeatureRange(j));
+            }
+            if (answerTable.predict(raw) != scorer.predict(raw)) {
+                tableMismatches++;
+            }
+            scorer.score(raw, scores);
+            double top = Softmax.apply(new double[][]{scores})[0][answerTable.predict(raw)];
+            maxProbabilityDiff = Math.max(maxProbabilityDiff, Math.abs(top - answerTable.getTopProbability(raw)));
+        }
+        System.out.println("Answer-space table size: " + answerTable.size());
+        System.out.println("Answer-space table vs lookup table mismatches: " + tableMismatches + " of " + samples);
+        System.out.println("Max abs diff (top probability, float storage): " + maxProbabilityDiff);
+
+        // Batched probabilities and labels into preallocated buffers vs one row at a time
+        DenseMatrix scaled = Scaler.toNormalizedMatrix(data, params);
+        DenseMatrix probabilities = new DenseMatrix(data.getRows(), 4);
+        DenseMatrix batchScores = new DenseMatrix(data.getRows(), 4);
+        int[] batchPrediction = new int[data.getRows()];
+        model.predictProba(scaled, probabilities);
+        model.predict(scaled, batchScores, batchPrediction);
+        double[][] rows = scaled.toArray();
+        double[][] rowProbabilities = new double[data.getRows()][];
+        int predictionMismatches = 0;
+        for (int i=0; i<data.getRows(); i++) {
+            double[] row = rows[i];
+            rowProbabilities[i] = model.predictProba(row);
+            if (batchPrediction[i] != model.predict(row)) {
+                predictionMismatches++;
+            }
+        }
+        System.out.println("Max abs diff (batched vs per-row probabilities): "
+            + _TestMatrixMath.maxAbsDiff(rowProbabilities, probabilities.toArray()));
+        System.out.println("Batched vs per-row prediction mismatches: " + predictionMismatches);
+    }
+
+    public static void test5() {
+        System.out.println("\n");
+        System.out.println("Started Test5");
+
+        DataStore testDataStore = loadTestDataStore();
+        double[][] data = DataStore.toDoubleMatrix(testDataStore.getData());
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+
+        // Warm-started regularization path: fits after the first need few iterations
+        ModelTrainer trainer = new ModelTrainer(data, labels, ModelTrainer.TrainerOptions.SCALE);
+        trainer.setSolver(LogisticRegressionMultinomial.Solver.NEWTON);
+        ModelTrainer.LambdaPath path = trainer.getLambdaPath(1e-6, 100);
+        double[] lambdas = path.getLambdas();
+        double[] accuracies = path.getMeanAccuracies();
+        double[] iterations = path.getMeanIterations();
+        for (int l=lambdas.length - 1; l>=0; l--) {
+            System.out.println("lambda " + lambdas[l] + ": mean CV accuracy " + accuracies[l]
+                + ", mean iterations " + iterations[l]);
+        }
+
+        // Converging solver: warm starts reach the same optima, so tuning agrees
+        LogisticRegressionMultinomial.Options cold = trainer.getTunedOptions();
+        trainer.setWarmStartPath(true);
+        LogisticRegressionMultinomial.Options warm = trainer.getTunedOptions();
+        System.out.println("Tuned lambda (cold / warm): " + cold.getLambda() + " / " + warm.getLambda());
+    }
+
+    public static void test6() {
+        System.out.println("\n");
+        System.out.println("Started Test6");
+
+        DataStore testDataStore = loadTestDataStore();
+        double[][] data = DataStore.toDoubleMatrix(testDataStore.getData());
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+
+        // Exhaustive grid vs successive halving over the same wide space (224 candidates)
+        ModelTrainer trainer = new ModelTrainer(data, labels, ModelTrainer.TrainerOptions.SCALE);
+        trainer.setSearchSpace(
+            new double[]{1e-6, 3e-6, 1e-5, 3e-5, 1e-4, 3e-4, 1e-3, 3e-3, 1e-2, 3e-2, 1e-1, 3e-1, 1, 3},
+            new double[]{1e-3, 1e-4, 1e-5, 1e-6},
+            new int[]{50, 100, 300, 900});
+        for (ModelTrainer.SearchStrategy strategy : new ModelTrainer.SearchStrategy[]{
+            ModelTrainer.SearchStrategy.GRID, ModelTrainer.SearchStrategy.SUCCESSIVE_HALVING}) {
+            trainer.setSearchStrategy(strategy);
+            long start = System.nanoTime();
+            LogisticRegressionMultinomial.Options options = trainer.getTunedOptions();
+            long millis = (System.nanoTime() - start) / 1000000;
+            double holdoutAccuracy = trainer.getTrainedModel(options).getModelMetrics().getMeasuredAccuracy();
+            System.out.println(strategy + ": lambda " + options.getLambda() + ", tolerance " + options.getTolerance()
+                + ", maxIter " + options.getMaxIter() + " in " + millis + " ms; CV accuracy " + trainer.getTunedAccuracy()
+                + ", holdout accuracy " + holdoutAccuracy);
+        }
+    }
+
+    public static void test7() {
+        System.out.println("\n");
+        System.out.println("Started Test7");
+
+        DataStore testDataStore = loadTestDataStore();
+        double[][] data = DataStore.toDoubleMatrix(testDataStore.getData());
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+
+        // Cached splits start out identical to a fresh split
+        FoldCache cache = ModelTrainer.newFoldCache();
+        ModelTrainer cached = new ModelTrainer(data, labels, ModelTrainer.TrainerOptions.SCALE, cache);
+        ModelTrainer fresh = new ModelTrainer(data, labels, ModelTrainer.TrainerOptions.SCALE);
+        System.out.println("Max abs diff (cached vs fresh scaling means): " + _TestMatrixMath.maxAbsDiff(
+            new double[][]{cached.getMasterDataScaledParams().getMeanVector()},
+            new double[][]{fresh.getMasterDataScaledParams().getMeanVector()}));
+
+        // Append resampled rows one at a time; merged statistics track a full pass
+        Random random = new Random(11);
+        int appended = 250;
+        double[][] grown = Arrays.copyOf(data, data.length + appended);
+        int[] grownLabels = Arrays.copyOf(labels, labels.length + appended);
+        for (int i=data.length; i<grown.length; i++) {
+            int source = random.nextInt(data.length);
+            grown[i] = data[source];
+            grownLabels[i] = labels[source];
+            cache.update(Arrays.copyOf(grown, i + 1), Arrays.copyOf(grownLabels, i + 1));
+        }
+        int[] trainRows = cache.getTrainIndices(0);
+        double[][] trainData = new double[trainRows.length][];
+        for (int i=0; i<trainRows.length; i++) {
+            trainData[i] = grown[trainRows[i]];
+        }
+        System.out.println("Max abs diff (merged vs two-pass std devs): " + _TestMatrixMath.maxAbsDiff(
+            new double[][]{cache.getTrainingScalingParams(0).getStdDevVector()},
+            new double[][]{Scaler.computeNormalDistParams(trainData).getStdDevVector()}));
+        for (int f=0; f<cache.getNumberOfFolds(); f++) {
+            int[] classCounts = new int[4];
+            for (int row : cache.getTestIndices(f)) {
+                classCounts[grownLabels[row]]++;
+            }
+            System.out.println("Fold " + f + " class counts: " + Arrays.toString(classCounts));
+        }
+    }
+
+    public static void test8() {
+        System.out.println("\n");
+        System.out.println("Started Test8");
+
+        DataStore testDataStore = loadTestDataStore();
+        double[][] data = DataStore.toDoubleMatrix(testDataStore.getData());
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+
+        // Validation folds as ModelTrainer builds them: the scaled master training set, split again
+        DataUnits.DataSet masterTrainSet = Preprocessor.getProcessed(
+            new StratifiedDataSplitter(data, labels, 5, 4).getDataBlock(0), true, false).getProcessedDataBlock().getTrainSet();
+        StratifiedDataSplitter validationSplitter = new StratifiedDataSplitter(
+            masterTrainSet.getData(), masterTrainSet.getLabels(), 5, 4);
+
+        // Every (tolerance, maxIter) cell read off one run per (lambda, fold) vs its own training
+        double[] lambdas = new double[]{1e-4, 1e-1};
+        double[] tolerances = new double[]{1e-2, 1e-4, 1e-6};
+        int[] maxIters = new int[]{10, 50, 300};
+        LogisticRegressionMultinomial.Solver[] solvers = new LogisticRegressionMultinomial.Solver[]{
+            LogisticRegressionMultinomial.Solver.GRADIENT_DESCENT, LogisticRegressionMultinomial.Solver.GRADIENT_DESCENT,
+            LogisticRegressionMultinomial.Solver.LBFGS, LogisticRegressionMultinomial.Solver.NEWTON};
+        LogisticRegressionMultinomial.StepStrategy[] stepStrategies = new LogisticRegressionMultinomial.StepStrategy[]{
+            LogisticRegressionMultinomial.StepStrategy.CONSTANT, LogisticRegressionMultinomial.StepStrategy.BACKTRACKING,
+            LogisticRegressionMultinomial.StepStrategy.CONSTANT, LogisticRegressionMultinomial.StepStrategy.CONSTANT};
+        for (int s=0; s<solvers.length; s++) {
+            LogisticRegressionMultinomial.Solver solver = solvers[s];
+            LogisticRegressionMultinomial.StepStrategy stepStrategy = stepStrategies[s];
+            ModelTrainer trainer = new ModelTrainer(data, labels, ModelTrainer.TrainerOptions.SCALE);
+            trainer.setSolver(solver);
+            trainer.setStepStrategy(stepStrategy);
+            trainer.setSearchSpace(lambdas, tolerances, maxIters);
+            trainer.getTunedOptions();
+            double[] pathAccuracies = trainer.getCandidateAccuracies();
+
+            int mismatches = 0;
+            int toleranceStops = 0;
+            int g = 0;
+            for (double lambda : lambdas) {
+                for (double tolerance : tolerances) {
+                    for (int maxIter : maxIters) {
+                        LogisticRegressionMultinomial.Options options = new LogisticRegressionMultinomial.Options.Builder()
+                            .setSolver(solver)
+                            .setStepStrategy(stepStrategy)
+                            .setLambda(lambda)
+                            .setTolerance(tolerance)
+                            .setMaxIter(maxIter)
+                            .build();
+                        double totalAccuracy = 0;
+                        for (int f=0; f<5; f++) {
+                            DataUnits.DataBlock fold = validationSplitter.getDataBlock(f);
+                            LogisticRegressionMultinomial model = new LogisticRegressionMultinomial(
+                                fold.getTrainSet().getMatrix(), fold.getTrainSet().getLabels(), 4, options);
+                            int[] prediction = model.predict(fold.getTestSet().getMatrix());
+                            totalAccuracy += new MetricsMultinomial(fold.getTestSet().getLabels(), prediction, 4).getAccuracy();
+                            toleranceStops += model.getIterations() < maxIter ? 1 : 0;
+                        }
+                        if (totalAccuracy / 5 != pathAccuracies[g++]) {
+                            mismatches++;
+                        }
+                    }
+                }
+            }
+            System.out.println(solver + " (" + stepStrategy + "): path vs independent fit accuracy mismatches " + mismatches + " of "
+                + pathAccuracies.length + " (" + toleranceStops + " of " + 5 * pathAccuracies.length
+                + " independent fits stopped on tolerance)");
+        }
+    }
+
+    public static void test9() {
+        System.out.println("\n");
+        System.out.println("Started Test9");
+
+        DataStore testDataStore = loadTestDataStore();
+        double[][] data = DataStore.toDoubleMatrix(testDataStore.getData());
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+
+        // The dataset with resampled rows appended
+        Random random = new Random(19);
+        int appended = 150;
+        double[][] grown = Arrays.copyOf(data, data.length + appended);
+        int[] grownLabels = Arrays.copyOf(labels, labels.length + appended);
+        for (int i=data.length; i<grown.length; i++) {
+            int source = random.nextInt(data.length);
+            grown[i] = data[source];
+            grownLabels[i] = labels[source];
+        }
+
+        Path file = Paths.get("data/_test_tuning_cache.tsv");
+        try {
+            Files.deleteIfExists(file);
+            TuningCache cache = new TuningCache(file.toString());
+            String setup = "test9\n";
+            cache.store(setup, data, labels, 1e-3, 1e-4, 300, 0.75);
+
+            // Lookups after appending rows: within and beyond the drift allowed
+            int maxDriftRows = 100;
+            for (int rows : new int[]{data.length, data.length + 50, data.length + appended}) {
+                TuningCache.Entry entry = cache.lookup(
+                    setup, Arrays.copyOf(grown, rows), Arrays.copyOf(grownLabels, rows), maxDriftRows);
+                System.out.println("Lookup after appending " + (rows - data.length) + " rows (max drift " + maxDriftRows
+                    + "): " + (entry == null ? "miss" : "hit, tuned on " + entry.getRows() + " rows, lambda " + entry.getLambda()));
+            }
+
+            // Any other setup or any changed value changes the fingerprint
+            double[][] changed = Arrays.copyOf(data, data.length);
+            changed[7] = changed[7].clone();
+            changed[7][0] += 1;
+            System.out.println("Lookup with another setup: "
+                + (cache.lookup("other\n", data, labels, maxDriftRows) == null ? "miss" : "hit"));
+            System.out.println("Lookup with one value changed: "
+                + (cache.lookup(setup, changed, labels, maxDriftRows) == null ? "miss" : "hit"));
+
+            // Through ModelTrainer: the same preprocessing hits, another one tunes (and stores) again
+            ModelTrainer.TrainerOptions[] preprocessing = new ModelTrainer.TrainerOptions[]{
+                ModelTrainer.TrainerOptions.SCALE, ModelTrainer.TrainerOptions.SCALE, ModelTrainer.TrainerOptions.DO_NOT_PREPROCESS};
+            for (ModelTrainer.TrainerOptions option : preprocessing) {
+                ModelTrainer trainer = new ModelTrainer(data, labels, option);
+                trainer.setSolver(LogisticRegressionMultinomial.Solver.LBFGS);
+                trainer.setTuningCache(cache, maxDriftRows);
+                int before = Files.readAllLines(file).size();
+                trainer.getTunedOptions();
+                System.out.println("Tuning with " + option + ": "
+                    + (Files.readAllLines(file).size() == before ? "cache hit" : "tuned and stored"));
+            }
+
+            // Malformed lines are skipped, and dropped by the next store
+            Files.writeString(file, "garbage" + System.lineSeparator() + "a\t1\tx\t1\t1\t1" + System.lineSeparator(),
+                StandardOpenOption.APPEND);
+            System.out.println("Lookup next to malformed lines: "
+                + (cache.lookup(setup, data, labels, maxDriftRows) == null ? "miss" : "hit"));
+
+            // At most 16 entries are kept, the oldest are dropped first
+            for (int i=0; i<20; i++) {
+                cache.store("setup " + i + "\n", data, labels, 1e-3, 1e-4, 300, 0.75);
+            }
+            System.out.println("Entries on disk: " + Files.readAllLines(file).size()
+                + ", oldest kept: " + (cache.lookup("setup 4\n", data, labels, 0) != null)
+                + ", oldest dropped: " + (cache.lookup("setup 3\n", data, labels, 0) == null));
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            System.out.println("Tuning cache IO error: " + ex.getMessage());
+        }
+    }
+
+    public static void test10() {
+        System.out.println("\n");
+        System.out.println("Started Test10");
+
+        DataStore testDataStore = loadTestDataStore();
+        double[][] data = DataStore.toDoubleMatrix(testDataStore.getData());
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+
+        // Every search strategy must pick the same options whatever the parallelism
+        int[] parallelisms = new int[]{1, 4, 16};
+        ModelTrainer.TuningThreads[] threads = new ModelTrainer.TuningThreads[]{
+            ModelTrainer.TuningThreads.PLATFORM, ModelTrainer.TuningThreads.PLATFORM, ModelTrainer.TuningThreads.VIRTUAL};
+        for (ModelTrainer.SearchStrategy strategy : ModelTrainer.SearchStrategy.values()) {
+            String reference = null;
+            for (int p=0; p<parallelisms.length; p++) {
+                ModelTrainer trainer = new ModelTrainer(data, labels, ModelTrainer.TrainerOptions.SCALE);
+                trainer.setSolver(LogisticRegressionMultinomial.Solver.LBFGS);
+                trainer.setSearchStrategy(strategy);
+                trainer.setTuningParallelism(parallelisms[p], threads[p]);
+                LogisticRegressionMultinomial.Options options = trainer.getTunedOptions();
+                String picked = "lambda " + options.getLambda() + ", tolerance " + options.getTolerance()
+                    + ", maxIter " + options.getMaxIter() + ", accuracy " + trainer.getTunedAccuracy();
+                if (reference == null) {
+                    reference = picked;
+                }
+                System.out.println(strategy + " with parallelism " + parallelisms[p] + " (" + threads[p] + "): " + picked
+                    + (picked.equals(reference) ? "" : "  MISMATCH"));
+            }
+        }
+    }
+
+    public static void test11() {
+        System.out.println("\n");
+        System.out.println("Started Test11");
+
+        DataStore testDataStore = loadTestDataStore();
+        DenseMatrix data = DenseMatrix.fromArray(DataStore.toDoubleMatrix(testDataStore.getData()));
+        int[] labels = DataStore.toIntVector(testDataStore.getLabels());
+        Scaler.NormalDistParams params = Scaler.computeNormalDistParams(data);
+        DenseMatrix scaled = Scaler.toNormalizedMatrix(data, params);
+        LogisticRegressionMultinomial.Options options = new LogisticRegressionMultinomial.Options.Builder()
+            .setSolver(LogisticRegressionMultinomial.Solver.LBFGS)
+            .build();
+        LogisticRegressionMultinomial model = new LogisticRegressionMultinomial(scaled, labels, 4, options);
+
+        // Rebased model on re-scaled inputs vs the original model on the original inputs
+        Random random = new Random(41);
+        int numFeatures = data.getCols();
+        double[] scale = new double[numFeatures];
+        double[] shift = new double[numFeatures];
+        for (int j=0; j<numFeatures; j++) {
+            scale[j] = 0.25 + 2 * random.nextDouble();
+            shift[j] = random.nextGaussian();
+        }
+        double[][] rescaled = scaled.toArray();
+        for (double[] row : rescaled) {
+            for (int j=0; j<numFeatures; j++) {
+                row[j] = scale[j] * row[j] + shift[j];
+            }
+        }
+        LogisticRegressionMultinomial rebased = model.copy();
+        rebased.rebaseFeatures(scale, shift);
+        DenseMatrix logits = new DenseMatrix(data.getRows(), 4);
+        DenseMatrix rebasedLogits = new DenseMatrix(data.getRows(), 4);
+        model.predictScores(scaled, logits, false);
+        rebased.predictScores(DenseMatrix.fromArray(rescaled), rebasedLogits, false);
+        double maxLogitDiff = 0;
+        for (int i=0; i<logits.getData().length; i++) {
+            maxLogitDiff = Math.max(maxLogitDiff, Math.abs(logits.getData()[i] - rebasedLogits.getData()[i]));
+        }
+        System.out.println("Max abs logit diff after rebasing: " + maxLogitDiff + " (within 1e-12: " + (maxLogitDiff <= 1e-12) + ")");
+        System.out.println("Original model unchanged by rebasing its copy: "
+            + Arrays.deepEquals(model.getWeights(), new LogisticRegressionMultinomial(scaled, labels, 4, options).getWeights()));
+
+        // Online updates: predictRaw vs the current model on inputs scaled by the current parameters
+        Predictor predictor = new Predictor(testDataStore, Predictor.UpdateMode.ONLINE, 1000);
+        ModelTrainer.TrainedModel retrained = predictor.getModel();
+        double[][] retrainedWeights = retrained.getModel().getWeights();
+        int updates = 20;
+        int checks = 500;
+        int mismatches = 0;
+        for (int u=0; u<updates; u++) {
+            double[] raw = new double[numFeatures];
+            for (int j=0; j<numFeatures; j++) {
+                raw[j] = 1 + random.nextInt(DataStore.getFeatureRange(j));
+            }
+            double[] encoded = DataStore.encodeFeaturesVector(raw);
+            int label = random.nextInt(4);
+            testDataStore.addData(encoded, label);
+            predictor.update(encoded, label);
+
+            Scaler.NormalDistParams currentParams = predictor.getTrainingDataScalingParams();
+            for (int c=0; c<checks; c++) {
+                for (int j=0; j<numFeatures; j++) {
+                    raw[j] = 1 + random.nextInt(DataStore.getFeatureRange(j));
+                }
+                double[][] vector = new double[][]{DataStore.encodeFeaturesVector(raw)};
+                double[] weighted = Weighter.toWeightedMatrix(Scaler.toNormalizedMatrix(vector, currentParams))[0];
+                if (predictor.getCurrentModel().predict(weighted) != predictor.predictRaw(raw)) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println("predictRaw vs current model mismatches over " + updates + " online updates: "
+            + mismatches + " of " + updates * checks);
+        System.out.println("Online updates moved the current model: "
+            + !Arrays.deepEquals(retrainedWeights, predictor.getCurrentModel().getWeights()));
+        System.out.println("Reported model and metrics still those of the last full retrain: "
+            + (predictor.getModel() == retrained && Arrays.deepEquals(retrainedWeights, retrained.getModel().getWeights())));
+    }
+
+    /*
+     * Load the test dataset, exiting on failure
+     */
+    private static DataStore loadTestDataStore() {
+        String fileName = "data/data_1000_realistic.csv";
+        DataStore testDataStore = new DataStore(fileName);
+        try {
+            testDataStore.loadData();
+        } catch (CorruptDataException ex) {
+            System.out.println("Error loading Data: corrupt data.");
+            System.out.println(ex.getMessage());
+            System.exit(1);
+        } catch (IOException ex) {
+            System.out.println("Error loading Data: IO Exception occured.");
+            System.out.println(ex.getMessage());
+            System.exit(1);
+        }
+        return testDataStore;
+    }
+
     public static void getStats(ModelTrainer.TrainedModel model) {
         System.out.println("\n");
         System.out.println("Accuracy: " + model.getModelMetrics().getMeasuredAccuracy());
@@ -121,6 +121,214 @@ public class _TestMatrixMath {
         
     }
 
+    public static void test11() {
+        // Sizes chosen to exercise ragged register tiles and multiple cache blocks
+        java.util.Random random = new java.util.Random(7);
+        double[][] A = randomMatrix(random, 67, 301);
+        double[][] B = randomMatrix(random, 301, 13);
+
+        double[][] expected = MatrixMath.multiply(A, B);
+        DenseMatrix actual = MatrixMath.multiply(DenseMatrix.fromArray(A), DenseMatrix.fromArray(B));
+
+        System.out.println("Max abs diff (jagged vs dense GEMM): " + maxAbsDiff(expected, actual.toArray()));
+    }
+
+    public static void test12() {
+        java.util.Random random = new java.util.Random(11);
+        DenseMatrix A = DenseMatrix.fromArray(randomMatrix(random, 301, 7));
+        DenseMatrix B = DenseMatrix.fromArray(randomMatrix(random, 301, 13));
+        DenseMatrix C = DenseMatrix.fromArray(randomMatrix(random, 9, 13));
+
+        DenseMatrix expectedA = MatrixMath.multiply(MatrixMath.transpose(A), B);
+        DenseMatrix actualA = MatrixMath.multiplyTransposeA(A, B);
+        System.out.println("Max abs diff (A^T B): " + maxAbsDiff(expectedA.toArray(), actualA.toArray()));
+
+        DenseMatrix expectedB = MatrixMath.multiply(B, MatrixMath.transpose(C));
+        DenseMatrix actualB = MatrixMath.multiplyTransposeB(B, C);
+        System.out.println("Max abs diff (A B^T): " + maxAbsDiff(expectedB.toArray(), actualB.toArray()));
+    }
+
+    /*
+     * Compare scalar and vector kernel backends on the same inputs.
+     * Run with --add-modules jdk.incubator.vector to include the vector backend
+     */
+    public static void test13() {
+        java.util.Random random = new java.util.Random(13);
+        double[][] A = randomMatrix(random, 301, 37);
+        double[][] B = randomMatrix(random, 37, 19);
+        double[][] C = randomMatrix(random, 301, 19);
+        double[] v = randomMatrix(random, 1, 37)[0];
+        double tolerance = 1e-9;
+
+        MatrixMath.setBackend(MatrixMath.Backend.SCALAR);
+        double[][][] expected = runBackendKernels(A, B, C, v);
+        try {
+            MatrixMath.setBackend(MatrixMath.Backend.VECTOR);
+        } catch (IllegalStateException ex) {
+            System.out.println("Vector backend unavailable, skipping: " + ex.getMessage());
+            return;
+        }
+        double[][][] actual = runBackendKernels(A, B, C, v);
+        MatrixMath.setBackend(MatrixMath.Backend.SCALAR);
+
+        String[] names = {"dot", "matrix-vector", "GEMM", "A^T B", "A B^T", "add", "scalarMultiply", "softmax"};
+        for (int i=0; i<names.length; i++) {
+            double diff = maxAbsDiff(expected[i], actual[i]);
+            System.out.println(names[i] + ": max abs diff " + diff + (diff <= tolerance ? " PASS" : " FAIL"));
+        }
+    }
+
+    public static void test14() {
+        java.util.Random random = new java.util.Random(17);
+        DenseMatrix A = DenseMatrix.fromArray(randomMatrix(random, 1003, 29));
+        DenseMatrix B = DenseMatrix.fromArray(randomMatrix(random, 29, 11));
+        double[] v = randomMatrix(random, 1, 29)[0];
+
+        MatrixMath.setParallelism(1);
+        DenseMatrix expected = MatrixMath.multiply(A, B);
+        double[] expectedVector = MatrixMath.multiply(A, v);
+
+        long threshold = MatrixMath.getParallelThreshold();
+        MatrixMath.setParallelism(4);
+        MatrixMath.setParallelThreshold(0);
+        DenseMatrix actual = MatrixMath.multiply(A, B);
+        double[] actualVector = MatrixMath.multiply(A, v);
+
+        System.out.println("Max abs diff (parallel GEMM): " + maxAbsDiff(expected.toArray(), actual.toArray()));
+        System.out.println("Max abs diff (parallel matrix-vector): "
+            + maxAbsDiff(new double[][]{expectedVector}, new double[][]{actualVector}));
+        MatrixMath.setParallelism(Runtime.getRuntime().availableProcessors());
+        MatrixMath.setParallelThreshold(threshold);
+    }
+
+    public static void test15() {
+        java.util.Random random = new java.util.Random(23);
+        int n = 150, d = 7, k = 3;
+        double lambda = 0.5;
+        double[][] X = randomMatrix(random, n, d);
+        int[] labels = new int[n];
+        for (int i=0; i<n; i++) {
+            labels[i] = random.nextInt(k);
+        }
+        double[] parameters = randomMatrix(random, 1, k * d + k)[0];
+
+        // Reference loss and gradient, one row and one class at a time
+        double expectedLoss = 0;
+        double[] expectedGradient = new double[parameters.length];
+        for (int i=0; i<n; i++) {
+            double[] logits = new double[k];
+            for (int c=0; c<k; c++) {
+                logits[c] = parameters[k * d + c];
+                for (int j=0; j<d; j++) {
+                    logits[c] += parameters[c * d + j] * X[i][j];
+                }
+            }
+            double[] probabilities = Softmax.apply(new double[][]{logits})[0];
+            expectedLoss -= Math.log(probabilities[labels[i]]) / n;
+            for (int c=0; c<k; c++) {
+                double delta = (probabilities[c] - (c == labels[i] ? 1 : 0)) / n;
+                for (int j=0; j<d; j++) {
+                    expectedGradient[c * d + j] += delta * X[i][j];
+                }
+                expectedGradient[k * d + c] += delta;
+            }
+        }
+        for (int i=0; i<k * d; i++) {
+            expectedLoss += 0.5 * lambda / n * parameters[i] * parameters[i];
+            expectedGradient[i] += lambda / n * parameters[i];
+        }
+
+        SoftmaxCrossEntropy objective = new SoftmaxCrossEntropy(DenseMatrix.fromArray(X), labels, k, lambda);
+        double[] gradient = new double[parameters.length];
+        double loss = objective.evaluate(parameters, gradient);
+
+        System.out.println("Abs diff (fused loss): " + Math.abs(expectedLoss - loss));
+        System.out.println("Max abs diff (fused gradient): "
+            + maxAbsDiff(new double[][]{expectedGradient}, new double[][]{gradient}));
+    }
+
+    public static void test16() {
+        java.util.Random random = new java.util.Random(29);
+        int size = 9;
+        DenseMatrix base = DenseMatrix.fromArray(randomMatrix(random, size, size));
+        DenseMatrix spd = MatrixMath.multiplyTransposeB(base, base);
+        for (int i=0; i<size; i++) {
+            spd.set(i, i, spd.get(i, i) + 1);
+        }
+        double[] expected = randomMatrix(random, 1, size)[0];
+        double[] solution = MatrixMath.multiply(spd, expected);
+
+        DenseMatrix factor = spd.copy();
+        boolean factored = MatrixMath.choleskyInPlace(factor);
+        MatrixMath.choleskySolve(factor, solution);
+        System.out.println("Cholesky factored: " + factored);
+        System.out.println("Max abs diff (Cholesky solve): "
+            + maxAbsDiff(new double[][]{expected}, new double[][]{solution}));
+
+        DenseMatrix indefinite = spd.copy();
+        indefinite.set(0, 0, -1);
+        System.out.println("Indefinite matrix factored: " + MatrixMath.choleskyInPlace(indefinite));
+    }
+
+    public static void test17() {
+        java.util.Random random = new java.util.Random(31);
+        int n = 20000, d = 7, k = 3;
+        double[][] X = randomMatrix(random, n, d);
+        int[] labels = new int[n];
+        for (int i=0; i<n; i++) {
+            labels[i] = random.nextInt(k);
+        }
+        double[] parameters = randomMatrix(random, 1, k * d + k)[0];
+        DenseMatrix data = DenseMatrix.fromArray(X);
+
+        double[] expected = new double[parameters.length];
+        double expectedLoss = new SoftmaxCrossEntropy(data, labels, k, 0.5).evaluate(parameters, expected);
+
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        double[] actual = new double[parameters.length];
+        double actualLoss = new SoftmaxCrossEntropy(data, labels, k, 0.5, pool).evaluate(parameters, actual);
+        pool.shutdown();
+
+        System.out.println("Sharded loss and gradient bit-identical (1 vs 4 threads): "
+            + (expectedLoss == actualLoss && java.util.Arrays.equals(expected, actual)));
+    }
+
+    private static double[][][] runBackendKernels(double[][] A, double[][] B, double[][] C, double[] v) {
+        DenseMatrix denseA = DenseMatrix.fromArray(A);
+        DenseMatrix denseB = DenseMatrix.fromArray(B);
+        DenseMatrix denseC = DenseMatrix.fromArray(C);
+        return new double[][][] {
+            {{MatrixMath.dot(A[0], v)}},
+            {MatrixMath.multiply(denseA, v)},
+            MatrixMath.multiply(denseA, denseB).toArray(),
+            MatrixMath.multiplyTransposeA(denseA, denseC).toArray(),
+            MatrixMath.multiplyTransposeB(denseA, MatrixMath.transpose(denseB)).toArray(),
+            MatrixMath.add(denseC, denseC).toArray(),
+            MatrixMath.scalarMultiply(0.3, denseC).toArray(),
+            Softmax.apply(denseC).toArray()
+        };
+    }
+
+    public static double[][] randomMatrix(java.util.Random random, int height, int width) {
+        double[][] matrix = new double[height][width];
+        for (int i=0; i<height; i++) {
+            for (int j=0; j<width; j++) {
+                matrix[i][j] = random.nextGaussian();
+            }
+        }
+        return matrix;
+    }
+
+    public static double maxAbsDiff(double[][] matrixA, double[][] matrixB) {
+        double max = 0;
+        for (int i=0; i<matrixA.length; i++) {
+            for (int j=0; j<matrixA[0].length; j++) {
+                max = Math.max(max, Math.abs(matrixA[i][j] - matrixB[i][j]));
+            }
+        }
+        return max;
+    }
+
     public static void printMatrix(double[][] matrix) {
         for (double[] row : matrix) {
             for (double val : row) {